@@ -0,0 +1,52 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.model.Booking;
+import com.smartfare.service.BookingService;
+import com.smartfare.service.SeatInventoryService;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// End-to-end BookingService.createBooking from four threads. Every call takes
+// the next free seat, walking schedule by schedule; bookings made during an
+// iteration are removed again before the next one.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class BookingBenchmark {
+
+    private BookingService bookingService;
+    private final AtomicInteger nextSeat = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase db) {
+        bookingService = db.bean(BookingService.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reset(SeededDatabase db) {
+        db.awaitBookings();
+        db.jdbcTemplate.update("DELETE FROM bookings WHERE booking_reference NOT LIKE 'BENCH%'");
+        db.jdbcTemplate.update("UPDATE bus_schedules SET available_seats = ?", db.bookableSeatsPerSchedule());
+        SeatInventoryService inventory = db.bean(SeatInventoryService.class);
+        for (int i = 0; i < db.scheduleCount(); i++) {
+            inventory.evict(db.scheduleId(i));
+        }
+        nextSeat.set(0);
+    }
+
+    @Benchmark
+    public Booking createBooking(SeededDatabase db) {
+        int n = nextSeat.getAndIncrement();
+        int perSchedule = db.bookableSeatsPerSchedule();
+        int schedule = (n / perSchedule) % db.scheduleCount();
+        int seat = db.bookingsPerSchedule + 1 + n % perSchedule;
+        int passenger = n % SeededDatabase.PASSENGERS;
+        return bookingService.createBooking("Bench Passenger " + passenger, SeededDatabase.phone(passenger),
+            db.scheduleId(schedule), "A" + seat);
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.dto.FareQuote;
+import com.smartfare.dto.FareQuoteLine;
+import com.smartfare.dto.ScheduleSummary;
+import com.smartfare.service.BusService;
+import com.smartfare.service.FarePricingService;
+import com.smartfare.service.TimetableService;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Fares for a page of `batchSize` schedules spread over the seeded days: the batch
+// quote (snapshot rows, one seat lookup, one pricing pass) against one
+// getFareQuote call per schedule, plus the pricing pass alone on rows already read.
+// The batch time should grow only slightly with batchSize.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FareQuoteBenchmark {
+
+    @Param({"1", "10", "50", "100"})
+    public int batchSize;
+
+    private BusService busService;
+    private FarePricingService farePricingService;
+    private final List<Long> scheduleIds = new ArrayList<>();
+    private List<ScheduleSummary> rows;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase db) {
+        busService = db.bean(BusService.class);
+        farePricingService = db.bean(FarePricingService.class);
+        int step = db.scheduleCount() / batchSize;
+        for (int i = 0; i < batchSize; i++) {
+            scheduleIds.add(db.scheduleId(i * step));
+        }
+        rows = new ArrayList<>(db.bean(TimetableService.class).findSchedules(scheduleIds).values());
+    }
+
+    @Benchmark
+    public List<FareQuoteLine> batchQuote() {
+        return busService.quoteFares(scheduleIds, 2);
+    }
+
+    @Benchmark
+    public List<FareQuote> perScheduleQuote() {
+        List<FareQuote> quotes = new ArrayList<>(scheduleIds.size());
+        for (Long scheduleId : scheduleIds) {
+            quotes.add(busService.getFareQuote(scheduleId));
+        }
+        return quotes;
+    }
+
+    @Benchmark
+    public List<FareQuote> pricingOnly() {
+        return farePricingService.quoteAll(rows);
+    }
+}
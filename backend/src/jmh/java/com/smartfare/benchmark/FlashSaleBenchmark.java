@@ -0,0 +1,78 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.exception.BookingRejectedException;
+import com.smartfare.service.BookingService;
+import com.smartfare.service.SeatInventoryService;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sixteen threads all booking random seats on the same schedule, as when a popular
+// bus opens for sale. After `attemptsPerSale` attempts the sale moves on to the next
+// schedule, so most attempts end on a taken seat or sold out. The Outcomes counters
+// split the attempts by result ("failed" is sold out or a lost lock race, "rejected"
+// is admission control); bookings made during an iteration are removed again
+// before the next one.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class FlashSaleBenchmark {
+
+    @Param({"200"})
+    public int attemptsPerSale;
+
+    private BookingService bookingService;
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long booked;
+        public long seatTaken;
+        public long failed;
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase db) {
+        bookingService = db.bean(BookingService.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reset(SeededDatabase db) {
+        db.awaitBookings();
+        db.jdbcTemplate.update("DELETE FROM bookings WHERE booking_reference NOT LIKE 'BENCH%'");
+        db.jdbcTemplate.update("UPDATE bus_schedules SET available_seats = ?", db.bookableSeatsPerSchedule());
+        SeatInventoryService inventory = db.bean(SeatInventoryService.class);
+        for (int i = 0; i < db.scheduleCount(); i++) {
+            inventory.evict(db.scheduleId(i));
+        }
+        attempts.set(0);
+    }
+
+    @Benchmark
+    public void book(SeededDatabase db, Outcomes outcomes) {
+        int n = attempts.getAndIncrement();
+        int schedule = (n / attemptsPerSale) % db.scheduleCount();
+        int seat = 1 + ThreadLocalRandom.current().nextInt(SeededDatabase.SEATS_PER_BUS);
+        int passenger = n % SeededDatabase.PASSENGERS;
+        try {
+            bookingService.createBooking("Bench Passenger " + passenger, SeededDatabase.phone(passenger),
+                db.scheduleId(schedule), "A" + seat);
+            outcomes.booked++;
+        } catch (BookingRejectedException e) {
+            outcomes.rejected++;
+        } catch (RuntimeException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("Seat already booked")) {
+                outcomes.seatTaken++;
+            } else {
+                outcomes.failed++;
+            }
+        }
+    }
+}
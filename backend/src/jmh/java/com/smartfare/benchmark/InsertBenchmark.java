@@ -0,0 +1,111 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.model.Booking;
+import com.smartfare.model.Bus;
+import com.smartfare.model.BusSchedule;
+import com.smartfare.model.Passenger;
+import com.smartfare.model.Route;
+import com.smartfare.repository.BusScheduleRepository;
+import com.smartfare.repository.PassengerRepository;
+import com.smartfare.service.BookingService;
+import com.smartfare.service.SeatInventoryService;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Insert throughput through JPA: saveAll of `rows` new passengers or schedules,
+// and a 10-seat group booking through BookingService. Rows created during an
+// iteration are removed again before the next one.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+
+    private static final int GROUP_SIZE = 10;
+
+    @Param({"100"})
+    public int rows;
+
+    private PassengerRepository passengerRepository;
+    private BusScheduleRepository busScheduleRepository;
+    private BookingService bookingService;
+    private Bus bus;
+    private Route route;
+    private int nextPassenger;
+    private int nextGroup;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase db) {
+        passengerRepository = db.bean(PassengerRepository.class);
+        busScheduleRepository = db.bean(BusScheduleRepository.class);
+        bookingService = db.bean(BookingService.class);
+        bus = new Bus();
+        bus.setId(SeededDatabase.ID_BASE);
+        route = new Route();
+        route.setId(SeededDatabase.ID_BASE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reset(SeededDatabase db) {
+        db.awaitBookings();
+        db.jdbcTemplate.update("DELETE FROM bookings WHERE booking_reference NOT LIKE 'BENCH%'");
+        db.jdbcTemplate.update("DELETE FROM passengers WHERE name LIKE 'Insert Bench%'");
+        db.jdbcTemplate.update("DELETE FROM bus_schedules WHERE schedule_date > ?",
+            Date.valueOf(db.firstDay.plusDays(db.days + 365)));
+        db.jdbcTemplate.update("UPDATE bus_schedules SET available_seats = ?", db.bookableSeatsPerSchedule());
+        SeatInventoryService inventory = db.bean(SeatInventoryService.class);
+        for (int i = 0; i < db.scheduleCount(); i++) {
+            inventory.evict(db.scheduleId(i));
+        }
+        nextGroup = 0;
+    }
+
+    @Benchmark
+    public List<Passenger> saveAllPassengers() {
+        List<Passenger> passengers = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int n = nextPassenger++;
+            passengers.add(new Passenger("Insert Bench " + n, "7" + String.format("%09d", n)));
+        }
+        return passengerRepository.saveAll(passengers);
+    }
+
+    @Benchmark
+    public List<BusSchedule> saveAllSchedules(SeededDatabase db) {
+        List<BusSchedule> schedules = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            BusSchedule schedule = new BusSchedule();
+            schedule.setBus(bus);
+            schedule.setRoute(route);
+            schedule.setDepartureTime(LocalTime.of(6, 0));
+            schedule.setArrivalTime(LocalTime.of(6, 40));
+            schedule.setFare(new BigDecimal("35.00"));
+            schedule.setAvailableSeats(SeededDatabase.SEATS_PER_BUS);
+            schedule.setScheduleDate(db.firstDay.plusDays(db.days + 366 + i % 1000));
+            schedules.add(schedule);
+        }
+        return busScheduleRepository.saveAll(schedules);
+    }
+
+    @Benchmark
+    public List<Booking> groupBooking(SeededDatabase db) {
+        // three groups fit on every schedule, after the seeded bookings
+        int n = nextGroup++;
+        int schedule = (n / 3) % db.scheduleCount();
+        int firstSeat = db.bookingsPerSchedule + 1 + (n % 3) * GROUP_SIZE;
+        List<String> seats = new ArrayList<>(GROUP_SIZE);
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            seats.add("A" + (firstSeat + i));
+        }
+        int passenger = n % SeededDatabase.PASSENGERS;
+        return bookingService.createGroupBooking("Bench Passenger " + passenger, SeededDatabase.phone(passenger),
+            db.scheduleId(schedule), seats);
+    }
+}
@@ -0,0 +1,73 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.util.ConnectionTimetable;
+import org.openjdk.jmh.annotations.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Earliest-arrival and cheapest journey queries over one synthetic day of
+// departures: `stops` stops joined by `routes` random routes, each served every
+// 20-120 minutes from 05:00 to 23:00. No database involved.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JourneyPlannerBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"500"})
+    public int stops;
+
+    @Param({"3000"})
+    public int routes;
+
+    private ConnectionTimetable timetable;
+    private final long[] origins = new long[QUERIES];
+    private final long[] destinations = new long[QUERIES];
+    private final int[] departAfter = new int[QUERIES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ConnectionTimetable.Builder builder = ConnectionTimetable.builder();
+        long scheduleId = 1;
+        for (int r = 0; r < routes; r++) {
+            long from = 1 + random.nextInt(stops);
+            long to = 1 + random.nextInt(stops);
+            if (from == to) {
+                continue;
+            }
+            int duration = 20 + random.nextInt(100);
+            int headway = 20 + random.nextInt(100);
+            int fare = (15 + duration / 2) * 100;
+            for (int departure = 5 * 60 + random.nextInt(headway); departure < 23 * 60; departure += headway) {
+                builder.add(scheduleId++, from, to, departure, (departure + duration) % (24 * 60), fare);
+            }
+        }
+        timetable = builder.build();
+        System.out.println("Timetable: " + timetable.stopCount() + " stops, "
+            + timetable.connectionCount() + " connections");
+
+        for (int i = 0; i < QUERIES; i++) {
+            origins[i] = 1 + random.nextInt(stops);
+            destinations[i] = 1 + random.nextInt(stops);
+            departAfter[i] = 6 * 60 + random.nextInt(10 * 60);
+        }
+    }
+
+    @Benchmark
+    public int[] earliestArrival() {
+        int i = next++ & (QUERIES - 1);
+        return timetable.earliestArrival(origins[i], destinations[i], departAfter[i], 10, 3, connection -> true);
+    }
+
+    @Benchmark
+    public int[] cheapest() {
+        int i = next++ & (QUERIES - 1);
+        return timetable.cheapest(origins[i], destinations[i], departAfter[i], 10, 3, connection -> true);
+    }
+}
@@ -0,0 +1,64 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.model.Booking;
+import com.smartfare.model.Bus;
+import com.smartfare.model.BusSchedule;
+import com.smartfare.model.Passenger;
+import com.smartfare.service.QRCodeService;
+import com.smartfare.service.TicketPayloadCodec;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Ticket payload encoding and QR rendering, cold (full encode + PNG) and from
+// the rendered-image cache. No database involved.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QRCodeBenchmark {
+
+    private QRCodeService qrCodeService;
+    private TicketPayloadCodec ticketPayloadCodec;
+    private Booking booking;
+    private String qrData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        qrCodeService = new QRCodeService(1_000);
+        ticketPayloadCodec = new TicketPayloadCodec("benchmark-key", true);
+
+        Bus bus = new Bus();
+        bus.setBusNumber("TN09N2345");
+        BusSchedule schedule = new BusSchedule();
+        schedule.setId(42L);
+        schedule.setBus(bus);
+        schedule.setScheduleDate(LocalDate.now());
+        booking = new Booking();
+        booking.setBookingReference("SF1792287743982A7B9");
+        booking.setPassenger(new Passenger("Ravi Kumar", "9000000001"));
+        booking.setSchedule(schedule);
+        booking.setSeatNumber("A12");
+        booking.setFareAmount(new BigDecimal("45.00"));
+
+        qrData = ticketPayloadCodec.encode(booking);
+    }
+
+    @Benchmark
+    public String encodeTicketPayload() {
+        return ticketPayloadCodec.encode(booking);
+    }
+
+    @Benchmark
+    public String renderQRCodeBase64() {
+        return qrCodeService.generateQRCodeBase64(qrData);
+    }
+
+    @Benchmark
+    public byte[] cachedQRCodePng() {
+        return qrCodeService.getQRCodePng(booking.getBookingReference(), qrData);
+    }
+}
@@ -0,0 +1,105 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.SmartFareApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Load test over HTTP: 64 concurrent clients searching buses and planning journeys
+// against the application running on platform threads or with the "virtual" profile.
+// Throughput plus the SampleTime percentiles (p99) compare the two modes. Uses the
+// data DataInitializer seeds into a private in-memory H2; on Java 17 the virtual
+// mode falls back to platform threads, which the threads health endpoint reports.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class RequestThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private List<long[]> routes;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void start() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(SmartFareApplication.class);
+        if (mode.equals("virtual")) {
+            builder.profiles("virtual");
+        }
+        context = builder.run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:load" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+            "--spring.jpa.show-sql=false",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api";
+        routes = context.getBean(JdbcTemplate.class).query(
+            "SELECT from_location_id, to_location_id FROM routes",
+            (rs, i) -> new long[] {rs.getLong(1), rs.getLong(2)});
+        today = LocalDate.now();
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        System.out.println("Threads: " + get("/api/health/threads"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public String search() {
+        long[] route = routes.get(ThreadLocalRandom.current().nextInt(routes.size()));
+        return get("/buses/search?fromLocationId=" + route[0] + "&toLocationId=" + route[1]
+            + "&travelDate=" + today);
+    }
+
+    @Benchmark
+    public String journeys() {
+        long[] route = routes.get(ThreadLocalRandom.current().nextInt(routes.size()));
+        return get("/buses/journeys?fromLocationId=" + route[0] + "&toLocationId=" + route[1]
+            + "&travelDate=" + today.plusDays(1));
+    }
+
+    private String get(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(path + " returned " + response.statusCode());
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new IllegalStateException(path + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(path + " interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.model.Bus;
+import com.smartfare.model.Route;
+import com.smartfare.service.ScheduleGenerationService;
+import com.smartfare.service.ScheduleTemplate;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Expands one daily template per seeded route and departure slot into `horizonDays`
+// days of schedules after the seeded ones. "fresh" inserts every row; "rerun"
+// generates over rows that are already there, which should insert nothing.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleGenerationBenchmark {
+
+    @Param({"90"})
+    public int horizonDays;
+
+    @Param({"fresh", "rerun"})
+    public String mode;
+
+    private ScheduleGenerationService generationService;
+    private final List<ScheduleTemplate> templates = new ArrayList<>();
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase db) {
+        generationService = db.bean(ScheduleGenerationService.class);
+        for (int r = 0; r < db.routes; r++) {
+            Route route = new Route();
+            route.setId(SeededDatabase.ID_BASE + r);
+            for (int s = 0; s < db.schedulesPerRouteDay; s++) {
+                Bus bus = new Bus();
+                bus.setId(SeededDatabase.ID_BASE + (s % 20));
+                LocalTime departure = LocalTime.of(5, 0).plusMinutes(s * 1080L / db.schedulesPerRouteDay);
+                templates.add(ScheduleTemplate.daily(bus, route, departure, departure.plusMinutes(40),
+                    new BigDecimal("35.00"), SeededDatabase.SEATS_PER_BUS));
+            }
+        }
+        from = db.firstDay.plusDays(db.days);
+        to = from.plusDays(horizonDays - 1);
+        if (mode.equals("rerun")) {
+            generationService.generate(templates, from, to);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clear(SeededDatabase db) {
+        if (mode.equals("fresh")) {
+            db.jdbcTemplate.update("DELETE FROM bus_schedules WHERE schedule_date >= ?", Date.valueOf(from));
+        }
+    }
+
+    @Benchmark
+    public ScheduleGenerationService.GenerationResult generate() {
+        return generationService.generate(templates, from, to);
+    }
+}
@@ -0,0 +1,44 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.dto.ScheduleSummary;
+import com.smartfare.repository.BusScheduleRepository;
+import com.smartfare.service.BusService;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// BusService.getAvailableBuses served from the timetable snapshot (plus the live
+// seat lookup), against the projection query that used to answer every search
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    private BusService busService;
+    private BusScheduleRepository busScheduleRepository;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase db) {
+        busService = db.bean(BusService.class);
+        busScheduleRepository = db.bean(BusScheduleRepository.class);
+    }
+
+    @Benchmark
+    public List<ScheduleSummary> snapshotSearch(SeededDatabase db) {
+        int route = ThreadLocalRandom.current().nextInt(db.routes);
+        int day = ThreadLocalRandom.current().nextInt(db.days);
+        return busService.getAvailableBuses(db.routeFromLocation(route), db.routeToLocation(route), db.firstDay.plusDays(day));
+    }
+
+    @Benchmark
+    public List<ScheduleSummary> querySearch(SeededDatabase db) {
+        int route = ThreadLocalRandom.current().nextInt(db.routes);
+        int day = ThreadLocalRandom.current().nextInt(db.days);
+        return busScheduleRepository.findAvailableBusSummaries(
+            db.routeFromLocation(route), db.routeToLocation(route), db.firstDay.plusDays(day));
+    }
+}
@@ -0,0 +1,71 @@
+package com.smartfare.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartfare.repository.BusScheduleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Entity-graph search results versus ScheduleSummary projections: time per
+// search including JSON serialization, plus a one-off report of statements
+// executed and response bytes per search for both read paths
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchPayloadBenchmark {
+
+    private static final int REPORT_SAMPLES = 100;
+
+    private BusScheduleRepository busScheduleRepository;
+    private ObjectMapper objectMapper;
+    private Long fromLocationId;
+    private Long toLocationId;
+    private LocalDate date;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase db) throws Exception {
+        busScheduleRepository = db.bean(BusScheduleRepository.class);
+        objectMapper = db.bean(ObjectMapper.class);
+        fromLocationId = db.routeFromLocation(0);
+        toLocationId = db.routeToLocation(0);
+        date = db.firstDay;
+
+        Statistics statistics = db.bean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        report("entity graph", statistics, () ->
+            busScheduleRepository.findAvailableBuses(fromLocationId, toLocationId, date));
+        report("projection", statistics, () ->
+            busScheduleRepository.findAvailableBusSummaries(fromLocationId, toLocationId, date));
+    }
+
+    @Benchmark
+    public byte[] entitySearchJson() throws Exception {
+        return objectMapper.writeValueAsBytes(busScheduleRepository.findAvailableBuses(fromLocationId, toLocationId, date));
+    }
+
+    @Benchmark
+    public byte[] projectionSearchJson() throws Exception {
+        return objectMapper.writeValueAsBytes(busScheduleRepository.findAvailableBusSummaries(fromLocationId, toLocationId, date));
+    }
+
+    private void report(String label, Statistics statistics, Supplier<List<?>> search) throws Exception {
+        statistics.clear();
+        long bytes = 0;
+        int rows = 0;
+        for (int i = 0; i < REPORT_SAMPLES; i++) {
+            List<?> results = search.get();
+            rows += results.size();
+            bytes += objectMapper.writeValueAsBytes(results).length;
+        }
+        System.out.printf("%n[%s] %.1f statements/search, %d rows/search, %d JSON bytes/search%n",
+            label, (double) statistics.getPrepareStatementCount() / REPORT_SAMPLES,
+            rows / REPORT_SAMPLES, bytes / REPORT_SAMPLES);
+    }
+}
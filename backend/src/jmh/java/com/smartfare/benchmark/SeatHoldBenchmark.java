@@ -0,0 +1,63 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.util.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one hold that is paid before it expires (schedule, then cancel) with
+// `holds` others outstanding over a 15-minute window: the TimingWheel SeatHoldService
+// uses against one ScheduledThreadPoolExecutor task per hold. The wheel should
+// stay flat as `holds` grows; the executor's delay queue is a heap behind one lock.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatHoldBenchmark {
+
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    @Param({"100000", "1000000"})
+    public int holds;
+
+    private TimingWheel<Integer> wheel;
+    private ScheduledThreadPoolExecutor executor;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        now = System.currentTimeMillis();
+        wheel = new TimingWheel<>(1000, 64, now);
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < holds; i++) {
+            long delay = random.nextLong(WINDOW_MILLIS);
+            wheel.schedule(i, now + delay);
+            executor.schedule(() -> { }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean timingWheel() {
+        synchronized (wheel) {
+            TimingWheel.Timer<Integer> timer = wheel.schedule(-1, now + WINDOW_MILLIS);
+            return wheel.cancel(timer);
+        }
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor() {
+        ScheduledFuture<?> future = executor.schedule(() -> { }, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+}
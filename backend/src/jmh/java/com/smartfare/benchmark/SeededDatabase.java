@@ -0,0 +1,209 @@
+package com.smartfare.benchmark;
+
+import com.smartfare.SmartFareApplication;
+import com.smartfare.service.BookingJournalService;
+import com.smartfare.service.TimetableService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Boots the application against a private in-memory H2 and seeds it at the
+// requested scale: routes x days x schedules per route/day, with a number of
+// confirmed bookings on every schedule. Override with e.g. -p routes=200;
+// -p journal=true takes bookings through the booking journal in a temp directory.
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    // Seeded rows use ids from here up so they never meet application-generated keys
+    public static final long ID_BASE = 1_000_000L;
+    public static final int SEATS_PER_BUS = 40;
+    public static final int PASSENGERS = 1_000;
+    private static final int BUSES = 20;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"20"})
+    public int routes;
+
+    @Param({"7"})
+    public int days;
+
+    @Param({"10"})
+    public int schedulesPerRouteDay;
+
+    @Param({"5"})
+    public int bookingsPerSchedule;
+
+    @Param({"false"})
+    public boolean journal;
+
+    public ConfigurableApplicationContext context;
+    public JdbcTemplate jdbcTemplate;
+    public LocalDate firstDay;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(SmartFareApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--smartfare.booking.journal.enabled=" + journal,
+                "--smartfare.booking.journal.directory=" + journalDirectory());
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        firstDay = LocalDate.now();
+        seed();
+        // rows went in behind the application's back, so rebuild the snapshots
+        bean(TimetableService.class).refresh();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int scheduleCount() {
+        return routes * days * schedulesPerRouteDay;
+    }
+
+    public long scheduleId(int index) {
+        return ID_BASE + index;
+    }
+
+    public long locationId(int index) {
+        return ID_BASE + index;
+    }
+
+    // Route r runs from location r to location r + 1
+    public long routeFromLocation(int route) {
+        return locationId(route);
+    }
+
+    public long routeToLocation(int route) {
+        return locationId(route + 1);
+    }
+
+    // Journalled bookings reach the tables shortly after they are acknowledged;
+    // call before resetting bookings between iterations
+    public void awaitBookings() {
+        if (journal && !bean(BookingJournalService.class).flush(Duration.ofSeconds(60))) {
+            throw new IllegalStateException("Booking journal did not catch up");
+        }
+    }
+
+    public int bookableSeatsPerSchedule() {
+        return SEATS_PER_BUS - bookingsPerSchedule;
+    }
+
+    private static String journalDirectory() {
+        try {
+            return Files.createTempDirectory("smartfare-journal").toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void seed() {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> locations = new ArrayList<>();
+        for (int i = 0; i <= routes; i++) {
+            locations.add(new Object[] {locationId(i), "Bench Stop " + i, "City " + (i % 50), "State", 13.0, 80.0, Timestamp.valueOf(now)});
+        }
+        batch("INSERT INTO locations (id, name, city, state, latitude, longitude, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", locations);
+
+        batch("INSERT INTO bus_types (id, type_name, description, created_at) VALUES (?, ?, ?, ?)",
+            List.<Object[]>of(new Object[] {ID_BASE, "Bench AC", "Benchmark bus type", Timestamp.valueOf(now)}));
+
+        List<Object[]> buses = new ArrayList<>();
+        for (int i = 0; i < BUSES; i++) {
+            buses.add(new Object[] {ID_BASE + i, "BENCH" + i, ID_BASE, SEATS_PER_BUS, "Bench Operator", "ACTIVE", Timestamp.valueOf(now)});
+        }
+        batch("INSERT INTO buses (id, bus_number, bus_type_id, total_seats, operator_name, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", buses);
+
+        List<Object[]> routeRows = new ArrayList<>();
+        for (int r = 0; r < routes; r++) {
+            routeRows.add(new Object[] {ID_BASE + r, routeFromLocation(r), routeToLocation(r),
+                new BigDecimal("20.00"), 40, new BigDecimal("30.00"), Timestamp.valueOf(now)});
+        }
+        batch("INSERT INTO routes (id, from_location_id, to_location_id, distance_km, estimated_duration_minutes, base_fare, created_at) " +
+              "VALUES (?, ?, ?, ?, ?, ?, ?)", routeRows);
+
+        List<Object[]> passengers = new ArrayList<>();
+        for (int i = 0; i < PASSENGERS; i++) {
+            passengers.add(new Object[] {ID_BASE + i, "Bench Passenger " + i, phone(i), Timestamp.valueOf(now)});
+        }
+        batch("INSERT INTO passengers (id, name, phone, created_at) VALUES (?, ?, ?, ?)", passengers);
+
+        List<Object[]> schedules = new ArrayList<>();
+        List<Object[]> bookings = new ArrayList<>();
+        int index = 0;
+        long bookingId = ID_BASE;
+        for (int d = 0; d < days; d++) {
+            Date date = Date.valueOf(firstDay.plusDays(d));
+            for (int r = 0; r < routes; r++) {
+                for (int s = 0; s < schedulesPerRouteDay; s++) {
+                    long id = scheduleId(index++);
+                    LocalTime departure = LocalTime.of(5, 0).plusMinutes(s * 1080L / schedulesPerRouteDay);
+                    schedules.add(new Object[] {id, ID_BASE + (s % BUSES), ID_BASE + r,
+                        Time.valueOf(departure), Time.valueOf(departure.plusMinutes(40)),
+                        new BigDecimal("35.00"), bookableSeatsPerSchedule(), date, "SCHEDULED", Timestamp.valueOf(now)});
+                    for (int b = 0; b < bookingsPerSchedule; b++) {
+                        bookings.add(new Object[] {bookingId, "BENCH" + bookingId, ID_BASE + (bookingId % PASSENGERS), id,
+                            "A" + (b + 1), new BigDecimal("35.00"), "COMPLETED", "UPI", "BENCH", "CONFIRMED", Timestamp.valueOf(now)});
+                        bookingId++;
+                    }
+                    if (schedules.size() >= BATCH_SIZE) {
+                        flushSchedules(schedules, bookings);
+                    }
+                }
+            }
+        }
+        flushSchedules(schedules, bookings);
+    }
+
+    public static String phone(int passenger) {
+        return "8" + String.format("%09d", passenger);
+    }
+
+    private void flushSchedules(List<Object[]> schedules, List<Object[]> bookings) {
+        batch("INSERT INTO bus_schedules (id, bus_id, route_id, departure_time, arrival_time, fare, available_seats, schedule_date, status, created_at) " +
+              "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", schedules);
+        batch("INSERT INTO bookings (id, booking_reference, passenger_id, schedule_id, seat_number, fare_amount, payment_status, " +
+              "payment_method, qr_code_data, booking_status, booking_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", bookings);
+        schedules.clear();
+        bookings.clear();
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.smartfare.service;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// BookingReferenceGenerator from four threads, raw ids and encoded references,
+// against the millis + UUID fragment references it replaced. Lives in the service
+// package to reach BookingReferenceGenerator.nextId.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class BookingReferenceBenchmark {
+
+    private final BookingReferenceGenerator generator = new BookingReferenceGenerator(1);
+
+    @Benchmark
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String nextReference() {
+        return generator.next();
+    }
+
+    @Benchmark
+    public String uuidReference() {
+        return "SF" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+    }
+}
@@ -0,0 +1,72 @@
+package com.smartfare.service;
+
+import com.smartfare.model.Location;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Autocomplete against the in-memory location index with generated stop names.
+// Lives in the service package to build the index without a database.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocationSearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+        "ko", "yam", "be", "du", "tam", "ba", "ram", "ve", "la", "che", "ry", "broad",
+        "way", "gu", "in", "dy", "pa", "ni", "ma", "ad", "yar", "po", "rur", "an", "na"
+    };
+    private static final String[] KINDS = {"Bus Terminal", "Bus Stand", "Bus Depot", "Junction", "Market", "Stop"};
+    private static final String[] CITIES = {"Chennai", "Coimbatore", "Madurai", "Salem", "Trichy", "Vellore"};
+
+    @Param({"1000", "100000"})
+    public int locations;
+
+    private final LocationSearchService locationSearchService = new LocationSearchService();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Location> source = new ArrayList<>(locations);
+        for (int i = 0; i < locations; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+            Location location = new Location(word + " " + KINDS[random.nextInt(KINDS.length)],
+                CITIES[random.nextInt(CITIES.length)], "Tamil Nadu");
+            location.setId((long) i + 1);
+            source.add(location);
+        }
+        source.get(0).setName("Koyambedu Bus Terminal");
+        source.get(1).setName("Tambaram Bus Stand");
+        locationSearchService.rebuild(source);
+    }
+
+    @Benchmark
+    public List<Location> shortPrefix() {
+        return locationSearchService.search("ko");
+    }
+
+    @Benchmark
+    public List<Location> wordPrefix() {
+        return locationSearchService.search("koyamb");
+    }
+
+    @Benchmark
+    public List<Location> typo() {
+        return locationSearchService.search("Tambram");
+    }
+
+    @Benchmark
+    public List<Location> twoTokens() {
+        return locationSearchService.search("koyambedu term");
+    }
+}
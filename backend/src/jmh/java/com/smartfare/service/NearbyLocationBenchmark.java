@@ -0,0 +1,94 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.NearbyLocation;
+import com.smartfare.model.Location;
+import com.smartfare.util.GeoGrid;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// k-nearest stops from the grid index against a linear scan over the same points.
+// Stops are spread uniformly over Tamil Nadu; query points are random within it.
+// Lives in the service package to build the index without a database.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NearbyLocationBenchmark {
+
+    private static final double MIN_LAT = 8.0;
+    private static final double MAX_LAT = 13.5;
+    private static final double MIN_LON = 76.2;
+    private static final double MAX_LON = 80.4;
+    private static final int QUERY_POINTS = 1024;
+
+    @Param({"100000"})
+    public int stops;
+
+    @Param({"5"})
+    public int k;
+
+    @Param({"0.05"})
+    public double cellDegrees;
+
+    private NearbyLocationService nearbyLocationService;
+    private double[] stopLatitudes;
+    private double[] stopLongitudes;
+    private final double[] queryLatitudes = new double[QUERY_POINTS];
+    private final double[] queryLongitudes = new double[QUERY_POINTS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        stopLatitudes = new double[stops];
+        stopLongitudes = new double[stops];
+        List<Location> source = new ArrayList<>(stops);
+        for (int i = 0; i < stops; i++) {
+            Location location = new Location("Stop " + i, "City " + (i % 500), "Tamil Nadu");
+            location.setId((long) i + 1);
+            stopLatitudes[i] = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            stopLongitudes[i] = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+            location.setLatitude(stopLatitudes[i]);
+            location.setLongitude(stopLongitudes[i]);
+            source.add(location);
+        }
+        nearbyLocationService = new NearbyLocationService(cellDegrees);
+        nearbyLocationService.rebuild(source);
+
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            queryLatitudes[i] = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            queryLongitudes[i] = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+        }
+    }
+
+    @Benchmark
+    public List<NearbyLocation> gridNearest() {
+        int i = next++ & (QUERY_POINTS - 1);
+        return nearbyLocationService.findNearest(queryLatitudes[i], queryLongitudes[i], k, 0);
+    }
+
+    @Benchmark
+    public double linearScanNearest() {
+        int q = next++ & (QUERY_POINTS - 1);
+        double[] best = new double[k];
+        Arrays.fill(best, Double.MAX_VALUE);
+        for (int i = 0; i < stops; i++) {
+            double distance = GeoGrid.distanceKm(queryLatitudes[q], queryLongitudes[q], stopLatitudes[i], stopLongitudes[i]);
+            if (distance < best[k - 1]) {
+                int j = k - 1;
+                while (j > 0 && best[j - 1] > distance) {
+                    best[j] = best[j - 1];
+                    j--;
+                }
+                best[j] = distance;
+            }
+        }
+        return best[k - 1];
+    }
+}
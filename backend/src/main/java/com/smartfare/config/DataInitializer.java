@@ -2,12 +2,13 @@ package com.smartfare.config;
 
 import com.smartfare.model.*;
 import com.smartfare.repository.*;
+import com.smartfare.service.ScheduleGenerationService;
+import com.smartfare.service.ScheduleTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,7 +29,7 @@ public class DataInitializer implements CommandLineRunner {
     private RouteRepository routeRepository;
 
     @Autowired
-    private BusScheduleRepository busScheduleRepository;
+    private ScheduleGenerationService scheduleGenerationService;
 
     @Override
     public void run(String... args) throws Exception {
@@ -96,85 +97,80 @@ public class DataInitializer implements CommandLineRunner {
             routeRepository.saveAll(routes);
             System.out.println("✅ Created 12 routes");
 
-            // Create schedules for multiple dates (today, next 7 days)
-            LocalDate today = LocalDate.now();
-            List<BusSchedule> schedules = new ArrayList<>();
+            // Daily departures, expanded into schedules for today and the next 7 days
+            List<ScheduleTemplate> templates = new ArrayList<>();
             
-            // Create schedules for today and next 7 days
-            for (int i = 0; i <= 7; i++) {
-                LocalDate currentDate = today.plusDays(i);
-                
-                // Koyambedu → Tambaram (4 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(0), LocalTime.of(6, 0), LocalTime.of(6, 45), new BigDecimal("45.00"), 35, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(0), LocalTime.of(8, 30), LocalTime.of(9, 15), new BigDecimal("35.00"), 45, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(0), LocalTime.of(14, 0), LocalTime.of(14, 45), new BigDecimal("40.00"), 40, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(0), LocalTime.of(20, 0), LocalTime.of(20, 45), new BigDecimal("50.00"), 30, currentDate));
-                
-                // Tambaram → Koyambedu (4 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(1), LocalTime.of(7, 0), LocalTime.of(7, 45), new BigDecimal("45.00"), 38, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(1), LocalTime.of(10, 0), LocalTime.of(10, 45), new BigDecimal("35.00"), 48, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(1), LocalTime.of(16, 0), LocalTime.of(16, 45), new BigDecimal("40.00"), 42, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(1), LocalTime.of(21, 30), LocalTime.of(22, 15), new BigDecimal("50.00"), 32, currentDate));
-                
-                // Koyambedu → Velachery (3 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(2), LocalTime.of(7, 0), LocalTime.of(7, 35), new BigDecimal("35.00"), 36, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(2), LocalTime.of(15, 30), LocalTime.of(16, 5), new BigDecimal("30.00"), 40, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(2), LocalTime.of(19, 0), LocalTime.of(19, 35), new BigDecimal("40.00"), 28, currentDate));
-                
-                // Velachery → Koyambedu (3 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(3), LocalTime.of(8, 0), LocalTime.of(8, 35), new BigDecimal("35.00"), 37, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(3), LocalTime.of(13, 0), LocalTime.of(13, 35), new BigDecimal("25.00"), 46, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(3), LocalTime.of(18, 0), LocalTime.of(18, 35), new BigDecimal("30.00"), 41, currentDate));
-                
-                // Koyambedu → Broadway (4 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(4), LocalTime.of(6, 30), LocalTime.of(6, 55), new BigDecimal("25.00"), 38, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(4), LocalTime.of(9, 0), LocalTime.of(9, 25), new BigDecimal("20.00"), 47, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(4), LocalTime.of(12, 30), LocalTime.of(12, 55), new BigDecimal("22.00"), 43, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(4), LocalTime.of(17, 0), LocalTime.of(17, 25), new BigDecimal("28.00"), 31, currentDate));
-                
-                // Broadway → Koyambedu (4 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(5), LocalTime.of(7, 30), LocalTime.of(7, 55), new BigDecimal("25.00"), 39, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(5), LocalTime.of(11, 0), LocalTime.of(11, 25), new BigDecimal("20.00"), 49, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(5), LocalTime.of(14, 30), LocalTime.of(14, 55), new BigDecimal("22.00"), 44, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(5), LocalTime.of(19, 30), LocalTime.of(19, 55), new BigDecimal("28.00"), 33, currentDate));
-                
-                // Broadway → Tambaram (3 buses per day)
-                schedules.add(createSchedule(buses.get(1), routes.get(6), LocalTime.of(8, 0), LocalTime.of(8, 50), new BigDecimal("40.00"), 46, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(6), LocalTime.of(13, 30), LocalTime.of(14, 20), new BigDecimal("38.00"), 42, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(6), LocalTime.of(18, 30), LocalTime.of(19, 20), new BigDecimal("45.00"), 32, currentDate));
-                
-                // Tambaram → Broadway (3 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(7), LocalTime.of(6, 30), LocalTime.of(7, 20), new BigDecimal("40.00"), 37, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(7), LocalTime.of(12, 0), LocalTime.of(12, 50), new BigDecimal("38.00"), 48, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(7), LocalTime.of(17, 30), LocalTime.of(18, 20), new BigDecimal("45.00"), 43, currentDate));
-                
-                // Broadway → Velachery (3 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(8), LocalTime.of(9, 0), LocalTime.of(9, 40), new BigDecimal("32.00"), 36, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(8), LocalTime.of(14, 0), LocalTime.of(14, 40), new BigDecimal("30.00"), 41, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(8), LocalTime.of(20, 0), LocalTime.of(20, 40), new BigDecimal("35.00"), 29, currentDate));
-                
-                // Velachery → Broadway (3 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(9), LocalTime.of(7, 30), LocalTime.of(8, 10), new BigDecimal("32.00"), 38, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(9), LocalTime.of(11, 30), LocalTime.of(12, 10), new BigDecimal("28.00"), 47, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(9), LocalTime.of(16, 30), LocalTime.of(17, 10), new BigDecimal("30.00"), 42, currentDate));
-                
-                // Tambaram → Velachery (3 buses per day)
-                schedules.add(createSchedule(buses.get(1), routes.get(10), LocalTime.of(8, 30), LocalTime.of(9, 0), new BigDecimal("28.00"), 45, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(10), LocalTime.of(13, 0), LocalTime.of(13, 30), new BigDecimal("25.00"), 43, currentDate));
-                schedules.add(createSchedule(buses.get(3), routes.get(10), LocalTime.of(18, 0), LocalTime.of(18, 30), new BigDecimal("30.00"), 31, currentDate));
-                
-                // Velachery → Tambaram (3 buses per day)
-                schedules.add(createSchedule(buses.get(0), routes.get(11), LocalTime.of(9, 30), LocalTime.of(10, 0), new BigDecimal("28.00"), 39, currentDate));
-                schedules.add(createSchedule(buses.get(1), routes.get(11), LocalTime.of(14, 30), LocalTime.of(15, 0), new BigDecimal("25.00"), 49, currentDate));
-                schedules.add(createSchedule(buses.get(2), routes.get(11), LocalTime.of(19, 30), LocalTime.of(20, 0), new BigDecimal("30.00"), 44, currentDate));
-            }
+            // Koyambedu → Tambaram (4 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(0), LocalTime.of(6, 0), LocalTime.of(6, 45), new BigDecimal("45.00"), 35));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(0), LocalTime.of(8, 30), LocalTime.of(9, 15), new BigDecimal("35.00"), 45));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(0), LocalTime.of(14, 0), LocalTime.of(14, 45), new BigDecimal("40.00"), 40));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(0), LocalTime.of(20, 0), LocalTime.of(20, 45), new BigDecimal("50.00"), 30));
+            
+            // Tambaram → Koyambedu (4 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(1), LocalTime.of(7, 0), LocalTime.of(7, 45), new BigDecimal("45.00"), 38));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(1), LocalTime.of(10, 0), LocalTime.of(10, 45), new BigDecimal("35.00"), 48));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(1), LocalTime.of(16, 0), LocalTime.of(16, 45), new BigDecimal("40.00"), 42));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(1), LocalTime.of(21, 30), LocalTime.of(22, 15), new BigDecimal("50.00"), 32));
+            
+            // Koyambedu → Velachery (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(2), LocalTime.of(7, 0), LocalTime.of(7, 35), new BigDecimal("35.00"), 36));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(2), LocalTime.of(15, 30), LocalTime.of(16, 5), new BigDecimal("30.00"), 40));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(2), LocalTime.of(19, 0), LocalTime.of(19, 35), new BigDecimal("40.00"), 28));
+            
+            // Velachery → Koyambedu (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(3), LocalTime.of(8, 0), LocalTime.of(8, 35), new BigDecimal("35.00"), 37));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(3), LocalTime.of(13, 0), LocalTime.of(13, 35), new BigDecimal("25.00"), 46));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(3), LocalTime.of(18, 0), LocalTime.of(18, 35), new BigDecimal("30.00"), 41));
+            
+            // Koyambedu → Broadway (4 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(4), LocalTime.of(6, 30), LocalTime.of(6, 55), new BigDecimal("25.00"), 38));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(4), LocalTime.of(9, 0), LocalTime.of(9, 25), new BigDecimal("20.00"), 47));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(4), LocalTime.of(12, 30), LocalTime.of(12, 55), new BigDecimal("22.00"), 43));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(4), LocalTime.of(17, 0), LocalTime.of(17, 25), new BigDecimal("28.00"), 31));
+            
+            // Broadway → Koyambedu (4 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(5), LocalTime.of(7, 30), LocalTime.of(7, 55), new BigDecimal("25.00"), 39));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(5), LocalTime.of(11, 0), LocalTime.of(11, 25), new BigDecimal("20.00"), 49));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(5), LocalTime.of(14, 30), LocalTime.of(14, 55), new BigDecimal("22.00"), 44));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(5), LocalTime.of(19, 30), LocalTime.of(19, 55), new BigDecimal("28.00"), 33));
+            
+            // Broadway → Tambaram (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(6), LocalTime.of(8, 0), LocalTime.of(8, 50), new BigDecimal("40.00"), 46));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(6), LocalTime.of(13, 30), LocalTime.of(14, 20), new BigDecimal("38.00"), 42));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(6), LocalTime.of(18, 30), LocalTime.of(19, 20), new BigDecimal("45.00"), 32));
+            
+            // Tambaram → Broadway (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(7), LocalTime.of(6, 30), LocalTime.of(7, 20), new BigDecimal("40.00"), 37));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(7), LocalTime.of(12, 0), LocalTime.of(12, 50), new BigDecimal("38.00"), 48));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(7), LocalTime.of(17, 30), LocalTime.of(18, 20), new BigDecimal("45.00"), 43));
+            
+            // Broadway → Velachery (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(8), LocalTime.of(9, 0), LocalTime.of(9, 40), new BigDecimal("32.00"), 36));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(8), LocalTime.of(14, 0), LocalTime.of(14, 40), new BigDecimal("30.00"), 41));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(8), LocalTime.of(20, 0), LocalTime.of(20, 40), new BigDecimal("35.00"), 29));
+            
+            // Velachery → Broadway (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(9), LocalTime.of(7, 30), LocalTime.of(8, 10), new BigDecimal("32.00"), 38));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(9), LocalTime.of(11, 30), LocalTime.of(12, 10), new BigDecimal("28.00"), 47));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(9), LocalTime.of(16, 30), LocalTime.of(17, 10), new BigDecimal("30.00"), 42));
+            
+            // Tambaram → Velachery (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(10), LocalTime.of(8, 30), LocalTime.of(9, 0), new BigDecimal("28.00"), 45));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(10), LocalTime.of(13, 0), LocalTime.of(13, 30), new BigDecimal("25.00"), 43));
+            templates.add(ScheduleTemplate.daily(buses.get(3), routes.get(10), LocalTime.of(18, 0), LocalTime.of(18, 30), new BigDecimal("30.00"), 31));
+            
+            // Velachery → Tambaram (3 buses per day)
+            templates.add(ScheduleTemplate.daily(buses.get(0), routes.get(11), LocalTime.of(9, 30), LocalTime.of(10, 0), new BigDecimal("28.00"), 39));
+            templates.add(ScheduleTemplate.daily(buses.get(1), routes.get(11), LocalTime.of(14, 30), LocalTime.of(15, 0), new BigDecimal("25.00"), 49));
+            templates.add(ScheduleTemplate.daily(buses.get(2), routes.get(11), LocalTime.of(19, 30), LocalTime.of(20, 0), new BigDecimal("30.00"), 44));
 
-            busScheduleRepository.saveAll(schedules);
-            System.out.println("✅ Created " + schedules.size() + " bus schedules for today and next 7 days");
+            LocalDate today = LocalDate.now();
+            int schedules = scheduleGenerationService.generate(templates, today, today.plusDays(7)).inserted();
+            System.out.println("✅ Created " + schedules + " bus schedules for today and next 7 days");
 
             System.out.println("🎉 Smart Fare database initialization completed successfully!");
             System.out.println("📈 Summary: " + locations.size() + " locations, " + buses.size() + " buses, "
-                    + routes.size() + " routes, " + schedules.size() + " schedules");
+                    + routes.size() + " routes, " + schedules + " schedules");
 
         } catch (Exception e) {
             System.err.println("❌ Error during database initialization: " + e.getMessage());
@@ -215,19 +211,4 @@ public class DataInitializer implements CommandLineRunner {
         route.setBaseFare(new BigDecimal(fare));
         return route;
     }
-
-    private BusSchedule createSchedule(Bus bus, Route route, LocalTime departure, LocalTime arrival,
-            BigDecimal fare, int availableSeats, LocalDate date) {
-        BusSchedule schedule = new BusSchedule();
-        schedule.setBus(bus);
-        schedule.setRoute(route);
-        schedule.setDepartureTime(departure);
-        schedule.setArrivalTime(arrival);
-        schedule.setFare(fare);
-        schedule.setAvailableSeats(availableSeats);
-        schedule.setScheduleDate(date);
-        schedule.setStatus(BusSchedule.ScheduleStatus.SCHEDULED);
-        schedule.setCreatedAt(LocalDateTime.now());
-        return busScheduleRepository.save(schedule);
-    }
 }
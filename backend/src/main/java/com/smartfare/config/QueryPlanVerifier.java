@@ -0,0 +1,127 @@
+package com.smartfare.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs EXPLAIN for the hot search and booking queries once the application is up
+// and warns when one of them scans bus_schedules or bookings instead of using an index.
+@Component
+public class QueryPlanVerifier {
+
+    // Native equivalents of the repository queries; literal values keep them valid for EXPLAIN
+    private static final Map<String, String> CHECKED_QUERIES = new LinkedHashMap<>();
+
+    static {
+        CHECKED_QUERIES.put("busSearch",
+            "SELECT bus_schedules.id FROM bus_schedules " +
+            "JOIN routes ON routes.id = bus_schedules.route_id " +
+            "WHERE routes.from_location_id = 1 AND routes.to_location_id = 2 " +
+            "AND bus_schedules.schedule_date = CURRENT_DATE " +
+            "AND bus_schedules.available_seats > 0 AND bus_schedules.status = 'SCHEDULED' " +
+            "ORDER BY bus_schedules.departure_time");
+        CHECKED_QUERIES.put("schedulesByDate",
+            "SELECT bus_schedules.id FROM bus_schedules WHERE bus_schedules.schedule_date = CURRENT_DATE");
+        CHECKED_QUERIES.put("bookedSeats",
+            "SELECT bookings.seat_number FROM bookings " +
+            "WHERE bookings.schedule_id = 1 AND bookings.booking_status = 'CONFIRMED'");
+        CHECKED_QUERIES.put("confirmedCount",
+            "SELECT COUNT(*) FROM bookings " +
+            "WHERE bookings.schedule_id = 1 AND bookings.booking_status = 'CONFIRMED'");
+        CHECKED_QUERIES.put("passengerHistory",
+            "SELECT bookings.id FROM bookings " +
+            "JOIN passengers ON passengers.id = bookings.passenger_id " +
+            "WHERE passengers.phone = '0000000000'");
+    }
+
+    // Tables expected to grow with traffic; scans of the small lookup tables are fine
+    private static final List<String> LARGE_TABLES = List.of("bus_schedules", "bookings");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${smartfare.db.verify-query-plans:false}")
+    private boolean enabled;
+
+    private volatile Map<String, Object> lastReport = Map.of("verified", false);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            verify();
+        }
+    }
+
+    public Map<String, Object> verify() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        List<String> tableScans = new ArrayList<>();
+
+        try {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            boolean mysql = product != null && product.toLowerCase().contains("mysql");
+
+            for (Map.Entry<String, String> query : CHECKED_QUERIES.entrySet()) {
+                List<String> scanned = mysql ? mysqlTableScans(query.getValue()) : h2TableScans(query.getValue());
+                for (String table : scanned) {
+                    tableScans.add(query.getKey() + ":" + table);
+                    System.err.println("⚠️ Query plan for " + query.getKey() + " scans table " + table
+                            + " - check the indexes in db/migration");
+                }
+            }
+
+            report.put("verified", true);
+            report.put("database", product);
+            report.put("queriesChecked", CHECKED_QUERIES.size());
+            report.put("tableScans", tableScans);
+
+            if (tableScans.isEmpty()) {
+                System.out.println("✅ Query plans use indexes for " + CHECKED_QUERIES.size() + " search and booking queries");
+            }
+
+        } catch (Exception e) {
+            System.err.println("Error verifying query plans: " + e.getMessage());
+            report.put("verified", false);
+            report.put("error", e.getMessage());
+        }
+
+        lastReport = report;
+        return report;
+    }
+
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+
+    // H2 marks a full scan as "PUBLIC.<TABLE>.tableScan" in the plan text
+    private List<String> h2TableScans(String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        List<String> scanned = new ArrayList<>();
+        for (String table : LARGE_TABLES) {
+            if (plan != null && plan.toLowerCase().contains(table + ".tablescan")) {
+                scanned.add(table);
+            }
+        }
+        return scanned;
+    }
+
+    // MySQL reports access type ALL for a full scan
+    private List<String> mysqlTableScans(String sql) {
+        List<String> scanned = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + sql)) {
+            Object table = row.get("table");
+            if ("ALL".equals(row.get("type")) && table != null && LARGE_TABLES.contains(table.toString())) {
+                scanned.add(table.toString());
+            }
+        }
+        return scanned;
+    }
+}
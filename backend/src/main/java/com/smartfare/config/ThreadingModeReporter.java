@@ -0,0 +1,63 @@
+package com.smartfare.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+// Reports whether requests run on virtual or platform threads, and how busy the
+// connection pool is. Spring Boot ignores spring.threads.virtual.enabled below
+// Java 21 without a word, so that case is called out at startup.
+@Component
+public class ThreadingModeReporter {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (isVirtual()) {
+            System.out.println("🧵 Serving requests on virtual threads (connection pool: "
+                    + poolSize() + ")");
+        } else if (requested) {
+            System.err.println("⚠️ Virtual threads requested but Java " + Runtime.version().feature()
+                    + " does not support them - serving requests on platform threads with the default pool");
+        }
+    }
+
+    public boolean isVirtual() {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mode", isVirtual() ? "virtual" : "platform");
+        stats.put("javaVersion", Runtime.version().feature());
+        if (dataSource instanceof HikariDataSource hikari) {
+            stats.put("poolSize", hikari.getMaximumPoolSize());
+            stats.put("connectionTimeoutMs", hikari.getConnectionTimeout());
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                stats.put("activeConnections", pool.getActiveConnections());
+                stats.put("idleConnections", pool.getIdleConnections());
+                stats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+            }
+        }
+        return stats;
+    }
+
+    private Object poolSize() {
+        return dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : "unknown";
+    }
+}
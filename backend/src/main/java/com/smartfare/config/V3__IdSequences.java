@@ -0,0 +1,47 @@
+package com.smartfare.config;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+// Creates the id sequences behind the entities' pooled generators, each starting
+// after the highest id already in its table. MySQL has no sequences, so Hibernate
+// keeps the counter in a one-row <table>_seq table instead. Runs from Java rather
+// than SQL because the start values depend on the data; Spring Boot hands
+// JavaMigration beans to Flyway.
+@Component
+public class V3__IdSequences extends BaseJavaMigration {
+
+    // must match allocationSize on the @SequenceGenerator mappings
+    private static final int INCREMENT = 50;
+
+    private static final List<String> TABLES = List.of(
+        "locations", "bus_types", "buses", "routes", "passengers", "bus_schedules", "bookings");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                long next;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+                    rs.next();
+                    next = rs.getLong(1);
+                }
+                if (mysql) {
+                    statement.execute("CREATE TABLE " + table + "_seq (next_val BIGINT)");
+                    statement.execute("INSERT INTO " + table + "_seq VALUES (" + next + ")");
+                } else {
+                    statement.execute("CREATE SEQUENCE " + table + "_seq START WITH " + next
+                            + " INCREMENT BY " + INCREMENT);
+                }
+            }
+        }
+    }
+}
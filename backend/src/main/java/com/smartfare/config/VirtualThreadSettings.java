@@ -0,0 +1,40 @@
+package com.smartfare.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import java.util.HashMap;
+import java.util.Map;
+
+// Settings that only make sense once requests run on virtual threads, written as
+// smartfare.virtual.<property>. When virtual threads are active (the virtual
+// profile on Java 21 or later) each one is applied as <property>; otherwise they
+// are ignored, so a smaller pool never meets 200 platform worker threads.
+public class VirtualThreadSettings implements EnvironmentPostProcessor {
+
+    static final String PREFIX = "smartfare.virtual.";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            return;
+        }
+        Map<String, Object> settings = new HashMap<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (source instanceof EnumerablePropertySource<?> enumerable) {
+                for (String name : enumerable.getPropertyNames()) {
+                    if (name.startsWith(PREFIX) && !settings.containsKey(name.substring(PREFIX.length()))) {
+                        settings.put(name.substring(PREFIX.length()), environment.getProperty(name));
+                    }
+                }
+            }
+        }
+        if (!settings.isEmpty()) {
+            environment.getPropertySources().addFirst(new MapPropertySource("virtualThreadSettings", settings));
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.smartfare.controller;
 
+import com.smartfare.dto.TicketPayload;
+import com.smartfare.exception.BookingRejectedException;
 import com.smartfare.model.Booking;
 import com.smartfare.service.BookingService;
+import com.smartfare.service.IdempotencyService;
 import com.smartfare.service.QRCodeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,8 +28,26 @@ public class BookingController {
     @Autowired
     private QRCodeService qrCodeService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    // Clients that retry should send an Idempotency-Key; a retry with the same key
+    // gets the original response instead of a second booking
     @PostMapping("/create")
-    public ResponseEntity<?> createBooking(@RequestBody Map<String, Object> bookingRequest) {
+    public ResponseEntity<?> createBooking(@RequestBody Map<String, Object> bookingRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("create", idempotencyKey, bookingRequest,
+            () -> create(bookingRequest));
+    }
+    
+    @PostMapping("/group")
+    public ResponseEntity<?> createGroupBooking(@RequestBody Map<String, Object> bookingRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("group", idempotencyKey, bookingRequest,
+            () -> createGroup(bookingRequest));
+    }
+    
+    private ResponseEntity<?> create(Map<String, Object> bookingRequest) {
         try {
             String passengerName = (String) bookingRequest.get("passengerName");
             String passengerPhone = (String) bookingRequest.get("passengerPhone");
@@ -34,11 +59,49 @@ public class BookingController {
             
             return ResponseEntity.ok(booking);
             
+        } catch (BookingRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    private ResponseEntity<?> createGroup(Map<String, Object> bookingRequest) {
+        try {
+            String passengerName = (String) bookingRequest.get("passengerName");
+            String passengerPhone = (String) bookingRequest.get("passengerPhone");
+            Long scheduleId = Long.valueOf(bookingRequest.get("scheduleId").toString());
+            List<String> seatNumbers = new ArrayList<>();
+            for (Object seat : (List<?>) bookingRequest.get("seatNumbers")) {
+                seatNumbers.add(seat.toString());
+            }
+            
+            List<Booking> bookings = bookingService.createGroupBooking(
+                passengerName, passengerPhone, scheduleId, seatNumbers);
+            
+            return ResponseEntity.ok(bookings);
+            
+        } catch (BookingRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
+    // Gate-side check: a scanned ticket passes only with a valid signature and a
+    // booking that is still confirmed and paid
+    @PostMapping("/qr/verify")
+    public ResponseEntity<?> verifyQRCode(@RequestBody Map<String, String> scanData) {
+        try {
+            TicketPayload payload = bookingService.verifyTicket(scanData.get("qrData"));
+            return ResponseEntity.ok(payload);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{bookingReference}")
     public ResponseEntity<Booking> getBooking(@PathVariable String bookingReference) {
         Optional<Booking> booking = bookingService.getBookingByReference(bookingReference);
@@ -54,10 +117,23 @@ public class BookingController {
     @PostMapping("/{bookingReference}/payment")
     public ResponseEntity<?> updatePaymentStatus(
             @PathVariable String bookingReference,
-            @RequestBody Map<String, String> paymentData) {
+            @RequestBody Map<String, String> paymentData,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         
+        return idempotencyService.execute("payment:" + bookingReference, idempotencyKey, paymentData,
+            () -> updatePayment(bookingReference, paymentData));
+    }
+    
+    private ResponseEntity<?> updatePayment(String bookingReference, Map<String, String> paymentData) {
         String transactionId = paymentData.get("transactionId");
-        Booking updatedBooking = bookingService.updatePaymentStatus(bookingReference, transactionId);
+        Booking updatedBooking;
+        try {
+            updatedBooking = bookingService.updatePaymentStatus(bookingReference, transactionId);
+        } catch (BookingRejectedException e) {
+            return rejected(e);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
         
         if (updatedBooking != null) {
             return ResponseEntity.ok(updatedBooking);
@@ -67,18 +143,42 @@ public class BookingController {
     
     @GetMapping("/{bookingReference}/qr")
     public ResponseEntity<?> getQRCode(@PathVariable String bookingReference) {
-        Optional<Booking> bookingOpt = bookingService.getBookingByReference(bookingReference);
+        Optional<String> qrDataOpt = bookingService.getQRCodeData(bookingReference);
         
-        if (bookingOpt.isPresent()) {
-            Booking booking = bookingOpt.get();
-            String qrCodeDataURL = qrCodeService.generateQRCodeDataURL(booking.getQrCodeData());
+        if (qrDataOpt.isPresent()) {
+            String qrData = qrDataOpt.get();
+            String qrCodeDataURL = qrCodeService.generateQRCodeDataURL(bookingReference, qrData);
             
             return ResponseEntity.ok(Map.of(
                 "qrCode", qrCodeDataURL,
-                "qrData", booking.getQrCodeData()
+                "qrData", qrData
             ));
         }
         
         return ResponseEntity.notFound().build();
     }
-}
\ No newline at end of file
+    
+    // Raw PNG for gate scanners and <img> tags; avoids the Base64 inflation
+    @GetMapping(value = "/{bookingReference}/qr.png", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getQRCodeImage(@PathVariable String bookingReference) {
+        Optional<String> qrDataOpt = bookingService.getQRCodeData(bookingReference);
+        
+        if (qrDataOpt.isPresent()) {
+            byte[] png = qrCodeService.getQRCodePng(bookingReference, qrDataOpt.get());
+            return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                // an unpaid ticket is cancelled when its hold expires, so browsers must ask again
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(png);
+        }
+        
+        return ResponseEntity.notFound().build();
+    }
+    
+    // Turned away by admission control: 429 with a hint for when to try again
+    private ResponseEntity<?> rejected(BookingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+            .body(Map.of("error", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds()));
+    }
+}
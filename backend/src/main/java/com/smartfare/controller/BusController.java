@@ -1,6 +1,10 @@
 package com.smartfare.controller;
 
-import com.smartfare.model.BusSchedule;
+import com.smartfare.dto.FareQuote;
+import com.smartfare.dto.FareQuoteLine;
+import com.smartfare.dto.Journey;
+import com.smartfare.dto.NearbyLocation;
+import com.smartfare.dto.ScheduleSummary;
 import com.smartfare.model.Location;
 import com.smartfare.service.BusService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +12,12 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/buses")
@@ -18,6 +27,9 @@ public class BusController {
     @Autowired
     private BusService busService;
     
+    private static final int MAX_QUOTE_SCHEDULES = 100;
+    private static final int MAX_QUOTE_SEATS = 10;
+    
     @GetMapping("/locations")
     public ResponseEntity<List<Location>> getAllLocations() {
         List<Location> locations = busService.getAllLocations();
@@ -25,8 +37,29 @@ public class BusController {
     }
     
     @GetMapping("/locations/search")
-    public ResponseEntity<List<Location>> searchLocations(@RequestParam String q) {
-        List<Location> locations = busService.searchLocations(q);
+    public ResponseEntity<List<Location>> searchLocations(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<Location> locations = busService.searchLocations(q, limit);
+        return ResponseEntity.ok(locations);
+    }
+    
+    @GetMapping("/locations/nearby")
+    public ResponseEntity<?> findNearbyLocations(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(defaultValue = "0") double radiusKm) {
+        
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            return ResponseEntity.badRequest().body("Latitude or longitude out of range");
+        }
+        
+        if (k < 1 || k > 50) {
+            return ResponseEntity.badRequest().body("k must be between 1 and 50");
+        }
+        
+        List<NearbyLocation> locations = busService.findNearbyLocations(lat, lon, k, radiusKm);
         return ResponseEntity.ok(locations);
     }
     
@@ -45,7 +78,7 @@ public class BusController {
                 return ResponseEntity.badRequest().body("From and To locations cannot be the same");
             }
             
-            List<BusSchedule> availableBuses = busService.getAvailableBuses(
+            List<ScheduleSummary> availableBuses = busService.getAvailableBuses(
                 fromLocationId, toLocationId, travelDate);
             
             return ResponseEntity.ok(availableBuses);
@@ -57,12 +90,78 @@ public class BusController {
         }
     }
     
+    @GetMapping("/journeys")
+    public ResponseEntity<?> planJourneys(
+            @RequestParam Long fromLocationId,
+            @RequestParam Long toLocationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime departAfter) {
+        
+        if (fromLocationId.equals(toLocationId)) {
+            return ResponseEntity.badRequest().body("From and To locations cannot be the same");
+        }
+        
+        List<Journey> journeys = busService.planJourneys(fromLocationId, toLocationId, travelDate,
+            departAfter != null ? departAfter : LocalTime.MIDNIGHT);
+        return ResponseEntity.ok(journeys);
+    }
+    
     @GetMapping("/schedule/{scheduleId}")
-    public ResponseEntity<BusSchedule> getBusSchedule(@PathVariable Long scheduleId) {
-        BusSchedule schedule = busService.getBusScheduleById(scheduleId);
+    public ResponseEntity<ScheduleSummary> getBusSchedule(@PathVariable Long scheduleId) {
+        ScheduleSummary schedule = busService.getScheduleSummary(scheduleId);
         if (schedule != null) {
             return ResponseEntity.ok(schedule);
         }
         return ResponseEntity.notFound().build();
     }
+    
+    // Fares for a whole page of search results in one call:
+    // {"scheduleIds": [12, 15, ...], "seats": 2}
+    @PostMapping("/fares/quote")
+    public ResponseEntity<?> quoteFares(@RequestBody Map<String, Object> quoteRequest) {
+        Object ids = quoteRequest.get("scheduleIds");
+        if (!(ids instanceof List<?> idList) || idList.isEmpty()) {
+            return ResponseEntity.badRequest().body("scheduleIds is required");
+        }
+        if (idList.size() > MAX_QUOTE_SCHEDULES) {
+            return ResponseEntity.badRequest().body("At most " + MAX_QUOTE_SCHEDULES + " schedules per quote");
+        }
+        int seats;
+        List<Long> scheduleIds = new ArrayList<>(idList.size());
+        try {
+            seats = quoteRequest.get("seats") != null ? Integer.parseInt(quoteRequest.get("seats").toString()) : 1;
+            for (Object id : idList) {
+                scheduleIds.add(Long.valueOf(String.valueOf(id)));
+            }
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("scheduleIds and seats must be numbers");
+        }
+        if (seats < 1 || seats > MAX_QUOTE_SEATS) {
+            return ResponseEntity.badRequest().body("seats must be between 1 and " + MAX_QUOTE_SEATS);
+        }
+        
+        List<FareQuoteLine> quotes = busService.quoteFares(scheduleIds, seats);
+        
+        Set<Long> quoted = new HashSet<>();
+        for (FareQuoteLine quote : quotes) {
+            quoted.add(quote.scheduleId());
+        }
+        List<Long> notFound = new ArrayList<>();
+        for (Long scheduleId : scheduleIds) {
+            if (!quoted.contains(scheduleId)) {
+                notFound.add(scheduleId);
+            }
+        }
+        return ResponseEntity.ok(Map.of("quotes", quotes, "notFound", notFound));
+    }
+    
+    // Current price of one seat and its breakdown
+    @GetMapping("/schedule/{scheduleId}/fare")
+    public ResponseEntity<FareQuote> getFare(@PathVariable Long scheduleId) {
+        FareQuote quote = busService.getFareQuote(scheduleId);
+        if (quote != null) {
+            return ResponseEntity.ok(quote);
+        }
+        return ResponseEntity.notFound().build();
+    }
 }
\ No newline at end of file
@@ -4,7 +4,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import com.smartfare.config.QueryPlanVerifier;
+import com.smartfare.config.ThreadingModeReporter;
 import com.smartfare.repository.*;
+import com.smartfare.service.BookingAdmissionController;
+import com.smartfare.service.BookingJournalService;
+import com.smartfare.service.BookingMetrics;
+import com.smartfare.service.FarePricingService;
+import com.smartfare.service.IdempotencyService;
+import com.smartfare.service.JourneyPlanner;
+import com.smartfare.service.LocationSearchService;
+import com.smartfare.service.NearbyLocationService;
+import com.smartfare.service.QRCodeService;
+import com.smartfare.service.QRPreRenderer;
+import com.smartfare.service.ScheduleGenerationService;
+import com.smartfare.service.SeatHoldService;
+import com.smartfare.service.SeatInventoryService;
+import com.smartfare.service.TimetableService;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,6 +39,54 @@ public class HealthController {
     
     @Autowired
     private BusScheduleRepository busScheduleRepository;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    
+    @Autowired
+    private BookingAdmissionController bookingAdmissionController;
+    
+    @Autowired
+    private BookingJournalService bookingJournalService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private SeatHoldService seatHoldService;
+    
+    @Autowired
+    private TimetableService timetableService;
+    
+    @Autowired
+    private ScheduleGenerationService scheduleGenerationService;
+    
+    @Autowired
+    private QRCodeService qrCodeService;
+    
+    @Autowired
+    private QRPreRenderer qrPreRenderer;
+    
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+    
+    @Autowired
+    private LocationSearchService locationSearchService;
+    
+    @Autowired
+    private NearbyLocationService nearbyLocationService;
+    
+    @Autowired
+    private JourneyPlanner journeyPlanner;
+    
+    @Autowired
+    private FarePricingService farePricingService;
+    
+    @Autowired
+    private ThreadingModeReporter threadingModeReporter;
 
     @GetMapping
     public Map<String, Object> healthCheck() {
@@ -87,4 +151,84 @@ public class HealthController {
         
         return db;
     }
+    
+    @GetMapping("/inventory")
+    public Map<String, Object> inventoryHealth() {
+        return seatInventoryService.getStats();
+    }
+    
+    @GetMapping("/bookings")
+    public Map<String, Object> bookingHealth() {
+        return bookingMetrics.getStats();
+    }
+    
+    @GetMapping("/admission")
+    public Map<String, Object> admissionHealth() {
+        return bookingAdmissionController.getStats();
+    }
+    
+    @GetMapping("/journal")
+    public Map<String, Object> journalHealth() {
+        return bookingJournalService.getStats();
+    }
+    
+    @GetMapping("/holds")
+    public Map<String, Object> seatHoldHealth() {
+        return seatHoldService.getStats();
+    }
+    
+    @GetMapping("/idempotency")
+    public Map<String, Object> idempotencyHealth() {
+        return idempotencyService.getStats();
+    }
+    
+    @GetMapping("/pricing")
+    public Map<String, Object> pricingHealth() {
+        return farePricingService.getStats();
+    }
+    
+    @GetMapping("/timetable")
+    public Map<String, Object> timetableHealth() {
+        return timetableService.getStats();
+    }
+    
+    @GetMapping("/schedule-generation")
+    public Map<String, Object> scheduleGenerationHealth() {
+        return scheduleGenerationService.getStats();
+    }
+    
+    @GetMapping("/qr-cache")
+    public Map<String, Object> qrCacheHealth() {
+        return qrCodeService.getCacheStats();
+    }
+    
+    @GetMapping("/threads")
+    public Map<String, Object> threadsHealth() {
+        return threadingModeReporter.getStats();
+    }
+    
+    @GetMapping("/qr-prerender")
+    public Map<String, Object> qrPreRenderHealth() {
+        return qrPreRenderer.getStats();
+    }
+    
+    @GetMapping("/location-index")
+    public Map<String, Object> locationIndexHealth() {
+        return locationSearchService.getStats();
+    }
+    
+    @GetMapping("/nearby-index")
+    public Map<String, Object> nearbyIndexHealth() {
+        return nearbyLocationService.getStats();
+    }
+    
+    @GetMapping("/journeys")
+    public Map<String, Object> journeyPlannerHealth() {
+        return journeyPlanner.getStats();
+    }
+    
+    @GetMapping("/query-plans")
+    public Map<String, Object> queryPlanHealth() {
+        return queryPlanVerifier.verify();
+    }
 }
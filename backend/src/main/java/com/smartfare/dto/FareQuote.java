@@ -0,0 +1,14 @@
+package com.smartfare.dto;
+
+import java.math.BigDecimal;
+
+// Price of one seat on a schedule and how it was reached: the route's base fare
+// plus distance, scaled by the bus type, seats sold and time to departure
+public record FareQuote(
+        Long scheduleId,
+        BigDecimal fare,
+        BigDecimal baseFare,
+        int busTypePercent,
+        int occupancyPercent,
+        int leadTimePercent) {
+}
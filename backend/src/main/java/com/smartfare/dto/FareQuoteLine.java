@@ -0,0 +1,14 @@
+package com.smartfare.dto;
+
+import java.math.BigDecimal;
+
+// One schedule's row in a batch fare quote: the price per seat, the total for
+// the requested number of seats and whether that many are still free
+public record FareQuoteLine(
+        Long scheduleId,
+        int seats,
+        BigDecimal fare,
+        BigDecimal totalFare,
+        int availableSeats,
+        boolean bookable) {
+}
@@ -0,0 +1,17 @@
+package com.smartfare.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+
+// A planned trip of one or more legs. criteria lists what it was chosen for:
+// EARLIEST_ARRIVAL, CHEAPEST or both.
+public record Journey(
+        List<String> criteria,
+        LocalTime departureTime,
+        LocalTime arrivalTime,
+        int durationMinutes,
+        int transfers,
+        BigDecimal totalFare,
+        List<JourneyLeg> legs) {
+}
@@ -0,0 +1,19 @@
+package com.smartfare.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+
+// One bus ride within a planned journey
+public record JourneyLeg(
+        Long scheduleId,
+        Long fromLocationId,
+        String fromLocationName,
+        Long toLocationId,
+        String toLocationName,
+        LocalTime departureTime,
+        LocalTime arrivalTime,
+        BigDecimal fare,
+        int availableSeats,
+        String busNumber,
+        String operatorName) {
+}
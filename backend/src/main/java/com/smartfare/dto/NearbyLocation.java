@@ -0,0 +1,12 @@
+package com.smartfare.dto;
+
+// A location returned by the nearby-stops lookup, with its distance from the query point
+public record NearbyLocation(
+        Long id,
+        String name,
+        String city,
+        String state,
+        Double latitude,
+        Double longitude,
+        double distanceKm) {
+}
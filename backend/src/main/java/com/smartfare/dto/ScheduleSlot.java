@@ -0,0 +1,7 @@
+package com.smartfare.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// What makes a generated schedule a duplicate: the same bus leaving on the same route at the same time
+public record ScheduleSlot(Long busId, Long routeId, LocalDate scheduleDate, LocalTime departureTime) {}
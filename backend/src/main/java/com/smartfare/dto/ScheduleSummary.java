@@ -0,0 +1,54 @@
+package com.smartfare.dto;
+
+import com.smartfare.model.BusSchedule;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Read model for search and schedule detail. Keeps the JSON shape the frontend
+// already reads (bus.busType.typeName, route.fromLocation.name, ...) but only
+// carries the fields that are rendered.
+public record ScheduleSummary(
+        Long id,
+        BusInfo bus,
+        RouteInfo route,
+        LocalTime departureTime,
+        LocalTime arrivalTime,
+        BigDecimal fare,
+        Integer availableSeats,
+        LocalDate scheduleDate,
+        BusSchedule.ScheduleStatus status) {
+
+    public record BusInfo(Long id, String busNumber, BusTypeInfo busType, Integer totalSeats, String operatorName) {}
+
+    public record BusTypeInfo(Long id, String typeName) {}
+
+    public record RouteInfo(Long id, LocationInfo fromLocation, LocationInfo toLocation,
+                            BigDecimal distanceKm, Integer estimatedDurationMinutes, BigDecimal baseFare) {}
+
+    public record LocationInfo(Long id, String name, String city) {}
+
+    // Flat constructor targeted by the JPQL constructor expressions in BusScheduleRepository
+    public ScheduleSummary(Long id, LocalTime departureTime, LocalTime arrivalTime, BigDecimal fare,
+                           Integer availableSeats, LocalDate scheduleDate, BusSchedule.ScheduleStatus status,
+                           Long busId, String busNumber, Integer totalSeats, String operatorName,
+                           Long busTypeId, String busTypeName,
+                           Long routeId, BigDecimal distanceKm, Integer estimatedDurationMinutes, BigDecimal baseFare,
+                           Long fromLocationId, String fromLocationName, String fromLocationCity,
+                           Long toLocationId, String toLocationName, String toLocationCity) {
+        this(id,
+             new BusInfo(busId, busNumber,
+                 busTypeId != null ? new BusTypeInfo(busTypeId, busTypeName) : null,
+                 totalSeats, operatorName),
+             new RouteInfo(routeId,
+                 new LocationInfo(fromLocationId, fromLocationName, fromLocationCity),
+                 new LocationInfo(toLocationId, toLocationName, toLocationCity),
+                 distanceKm, estimatedDurationMinutes, baseFare),
+             departureTime, arrivalTime, fare, availableSeats, scheduleDate, status);
+    }
+
+    // Live seat count and the fare quoted for it, over the cached timetable row
+    public ScheduleSummary withAvailability(Integer seats, BigDecimal liveFare) {
+        return new ScheduleSummary(id, bus, route, departureTime, arrivalTime, liveFare, seats, scheduleDate, status);
+    }
+}
@@ -0,0 +1,4 @@
+package com.smartfare.dto;
+
+// Live seat count for one schedule, read without loading the schedule itself
+public record SeatCount(Long scheduleId, Integer availableSeats) {}
@@ -0,0 +1,6 @@
+package com.smartfare.dto;
+
+import java.time.LocalDateTime;
+
+// An unpaid booking's seat, held until the payment window after bookingDate ends
+public record SeatHold(String bookingReference, Long scheduleId, String seatNumber, LocalDateTime bookingDate) {}
@@ -0,0 +1,16 @@
+package com.smartfare.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Fields carried in a ticket QR code, as recovered by TicketPayloadCodec.decode
+public record TicketPayload(
+        int version,
+        String bookingReference,
+        Long scheduleId,
+        String seatNumber,
+        LocalDate scheduleDate,
+        BigDecimal fare,
+        String busNumber,
+        String passengerName) {
+}
@@ -0,0 +1,20 @@
+package com.smartfare.exception;
+
+// A booking turned away before it reached the database, either because the
+// schedule is sold out or because too many bookings for it are already waiting.
+// The client may try again after retryAfterSeconds.
+public class BookingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public BookingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -6,19 +6,42 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(
+    name = Booking.GRAPH_DETAIL,
+    attributeNodes = {
+        @NamedAttributeNode("passenger"),
+        @NamedAttributeNode(value = "schedule", subgraph = "schedule")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "schedule", attributeNodes = {
+            @NamedAttributeNode(value = "bus", subgraph = "bus"),
+            @NamedAttributeNode(value = "route", subgraph = "route")
+        }),
+        @NamedSubgraph(name = "bus", attributeNodes = @NamedAttributeNode("busType")),
+        @NamedSubgraph(name = "route", attributeNodes = {
+            @NamedAttributeNode("fromLocation"),
+            @NamedAttributeNode("toLocation")
+        })
+    }
+)
 public class Booking {
+    // Everything a booking is rendered with, for the single lookup and the
+    // passenger's history alike; associations are lazy everywhere else
+    public static final String GRAPH_DETAIL = "Booking.detail";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "booking_reference", unique = true, nullable = false)
     private String bookingReference;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "passenger_id", nullable = false)
     private Passenger passenger;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "schedule_id", nullable = false)
     private BusSchedule schedule;
     
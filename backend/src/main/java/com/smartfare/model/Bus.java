@@ -7,13 +7,14 @@ import java.time.LocalDateTime;
 @Table(name = "buses")
 public class Bus {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "buses_seq")
+    @SequenceGenerator(name = "buses_seq", sequenceName = "buses_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "bus_number", unique = true, nullable = false)
     private String busNumber;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "bus_type_id")
     private BusType busType;
     
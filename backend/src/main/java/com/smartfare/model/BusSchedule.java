@@ -8,16 +8,36 @@ import java.time.LocalTime;
 
 @Entity
 @Table(name = "bus_schedules")
+@NamedEntityGraph(
+    name = BusSchedule.GRAPH_DETAIL,
+    attributeNodes = {
+        @NamedAttributeNode(value = "bus", subgraph = "bus"),
+        @NamedAttributeNode(value = "route", subgraph = "route")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "bus", attributeNodes = @NamedAttributeNode("busType")),
+        @NamedSubgraph(name = "route", attributeNodes = {
+            @NamedAttributeNode("fromLocation"),
+            @NamedAttributeNode("toLocation")
+        })
+    }
+)
 public class BusSchedule {
+    // Booking needs seat capacity, the bus type (for pricing) and the route ends,
+    // which is also what a schedule is rendered with; search results mostly come
+    // from ScheduleSummary projections instead
+    public static final String GRAPH_DETAIL = "BusSchedule.detail";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bus_schedules_seq")
+    @SequenceGenerator(name = "bus_schedules_seq", sequenceName = "bus_schedules_seq", allocationSize = 50)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "bus_id", nullable = false)
     private Bus bus;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "route_id", nullable = false)
     private Route route;
     
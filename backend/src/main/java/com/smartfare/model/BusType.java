@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "bus_types")
 public class BusType {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bus_types_seq")
+    @SequenceGenerator(name = "bus_types_seq", sequenceName = "bus_types_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "type_name", nullable = false)
@@ -1,23 +1,51 @@
 package com.smartfare.repository;
 
+import com.smartfare.dto.SeatHold;
 import com.smartfare.model.Booking;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     
+    @EntityGraph(Booking.GRAPH_DETAIL)
     Optional<Booking> findByBookingReference(String bookingReference);
     
+    @EntityGraph(Booking.GRAPH_DETAIL)
     List<Booking> findByPassengerPhone(String phone);
     
+    @Query("SELECT b.qrCodeData FROM Booking b WHERE b.bookingReference = :bookingReference AND b.bookingStatus = 'CONFIRMED'")
+    Optional<String> findConfirmedQrCodeDataByBookingReference(@Param("bookingReference") String bookingReference);
+    
+    @Query("SELECT b.bookingReference FROM Booking b WHERE b.bookingReference IN :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+    
     @Query("SELECT COUNT(b) FROM Booking b WHERE b.schedule.id = :scheduleId AND b.bookingStatus = 'CONFIRMED'")
     Long countConfirmedBookingsBySchedule(@Param("scheduleId") Long scheduleId);
     
     @Query("SELECT b.seatNumber FROM Booking b WHERE b.schedule.id = :scheduleId AND b.bookingStatus = 'CONFIRMED'")
     List<String> findBookedSeatsBySchedule(@Param("scheduleId") Long scheduleId);
-}
\ No newline at end of file
+    
+    // Bookings still waiting for payment, for re-registering their holds
+    @Query("SELECT new com.smartfare.dto.SeatHold(b.bookingReference, b.schedule.id, b.seatNumber, b.bookingDate) " +
+           "FROM Booking b WHERE b.bookingStatus = 'CONFIRMED' AND b.paymentStatus = 'PENDING'")
+    List<SeatHold> findUnpaidHolds();
+    
+    // Conditional, so an expiry and a payment for the same booking cannot both succeed
+    @Modifying
+    @Query("UPDATE Booking b SET b.bookingStatus = 'CANCELLED', b.paymentStatus = 'FAILED' " +
+           "WHERE b.bookingReference = :bookingReference AND b.bookingStatus = 'CONFIRMED' AND b.paymentStatus = 'PENDING'")
+    int cancelUnpaid(@Param("bookingReference") String bookingReference);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.paymentStatus = 'COMPLETED', b.paymentTransactionId = :transactionId " +
+           "WHERE b.bookingReference = :bookingReference AND b.bookingStatus = 'CONFIRMED'")
+    int completePayment(@Param("bookingReference") String bookingReference, @Param("transactionId") String transactionId);
+}
@@ -1,16 +1,36 @@
 package com.smartfare.repository;
 
+import com.smartfare.dto.ScheduleSlot;
+import com.smartfare.dto.ScheduleSummary;
+import com.smartfare.dto.SeatCount;
 import com.smartfare.model.BusSchedule;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BusScheduleRepository extends JpaRepository<BusSchedule, Long> {
     
+    String SUMMARY_SELECT = "SELECT new com.smartfare.dto.ScheduleSummary(" +
+           "bs.id, bs.departureTime, bs.arrivalTime, bs.fare, bs.availableSeats, bs.scheduleDate, bs.status, " +
+           "b.id, b.busNumber, b.totalSeats, b.operatorName, bt.id, bt.typeName, " +
+           "r.id, r.distanceKm, r.estimatedDurationMinutes, r.baseFare, " +
+           "fl.id, fl.name, fl.city, tl.id, tl.name, tl.city) " +
+           "FROM BusSchedule bs " +
+           "JOIN bs.bus b " +
+           "LEFT JOIN b.busType bt " +
+           "JOIN bs.route r " +
+           "JOIN r.fromLocation fl " +
+           "JOIN r.toLocation tl ";
+    
+    @EntityGraph(BusSchedule.GRAPH_DETAIL)
     @Query("SELECT bs FROM BusSchedule bs " +
            "JOIN bs.route r " +
            "WHERE r.fromLocation.id = :fromLocationId " +
@@ -25,6 +45,60 @@ public interface BusScheduleRepository extends JpaRepository<BusSchedule, Long>
         @Param("scheduleDate") LocalDate scheduleDate
     );
     
+    @Query(SUMMARY_SELECT +
+           "WHERE fl.id = :fromLocationId " +
+           "AND tl.id = :toLocationId " +
+           "AND bs.scheduleDate = :scheduleDate " +
+           "AND bs.availableSeats > 0 " +
+           "AND bs.status = 'SCHEDULED' " +
+           "ORDER BY bs.departureTime")
+    List<ScheduleSummary> findAvailableBusSummaries(
+        @Param("fromLocationId") Long fromLocationId,
+        @Param("toLocationId") Long toLocationId,
+        @Param("scheduleDate") LocalDate scheduleDate
+    );
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE bs.scheduleDate = :scheduleDate " +
+           "AND bs.status = 'SCHEDULED' " +
+           "ORDER BY bs.departureTime")
+    List<ScheduleSummary> findScheduledSummariesByDate(@Param("scheduleDate") LocalDate scheduleDate);
+    
+    @Query(SUMMARY_SELECT + "WHERE bs.id = :scheduleId")
+    Optional<ScheduleSummary> findSummaryById(@Param("scheduleId") Long scheduleId);
+    
+    @Query(SUMMARY_SELECT +
+           "WHERE bs.id IN :scheduleIds " +
+           "AND bs.status = 'SCHEDULED'")
+    List<ScheduleSummary> findScheduledSummariesByIds(@Param("scheduleIds") Collection<Long> scheduleIds);
+    
+    // Seat counts only, for results served from the timetable snapshot
+    @Query("SELECT new com.smartfare.dto.SeatCount(bs.id, bs.availableSeats) " +
+           "FROM BusSchedule bs WHERE bs.id IN :scheduleIds")
+    List<SeatCount> findSeatCounts(@Param("scheduleIds") Collection<Long> scheduleIds);
+    
+    @Query("SELECT bs.id FROM BusSchedule bs WHERE bs.id IN :scheduleIds AND bs.scheduleDate < :date")
+    List<Long> findIdsScheduledBefore(@Param("scheduleIds") Collection<Long> scheduleIds, @Param("date") LocalDate date);
+    
+    @EntityGraph(BusSchedule.GRAPH_DETAIL)
+    @Query("SELECT bs FROM BusSchedule bs WHERE bs.id = :scheduleId")
+    Optional<BusSchedule> findForBookingById(@Param("scheduleId") Long scheduleId);
+    
+    @Query("SELECT new com.smartfare.dto.ScheduleSlot(bs.bus.id, bs.route.id, bs.scheduleDate, bs.departureTime) " +
+           "FROM BusSchedule bs WHERE bs.scheduleDate BETWEEN :fromDate AND :toDate")
+    List<ScheduleSlot> findSlots(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+    
+    @EntityGraph(BusSchedule.GRAPH_DETAIL)
     @Query("SELECT bs FROM BusSchedule bs WHERE bs.scheduleDate = :date")
     List<BusSchedule> findByScheduleDate(@Param("date") LocalDate date);
-}
\ No newline at end of file
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BusSchedule bs SET bs.availableSeats = bs.availableSeats - :seats " +
+           "WHERE bs.id = :scheduleId AND bs.availableSeats >= :seats")
+    int decrementAvailableSeats(@Param("scheduleId") Long scheduleId, @Param("seats") int seats);
+    
+    // Seats handed back by cancelled bookings
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BusSchedule bs SET bs.availableSeats = bs.availableSeats + :seats WHERE bs.id = :scheduleId")
+    int incrementAvailableSeats(@Param("scheduleId") Long scheduleId, @Param("seats") int seats);
+}
@@ -3,6 +3,8 @@ package com.smartfare.repository;
 import com.smartfare.model.Passenger;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -10,5 +12,7 @@ public interface PassengerRepository extends JpaRepository<Passenger, Long> {
     
     Optional<Passenger> findByPhone(String phone);
     
+    List<Passenger> findByPhoneIn(Collection<String> phones);
+    
     Optional<Passenger> findByEmail(String email);
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.smartfare.service;
+
+import com.smartfare.exception.BookingRejectedException;
+import com.smartfare.util.SeatInventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Per-schedule admission in front of the booking transaction. Requests that
+// cannot succeed - the schedule is sold out or the seat is taken, according to
+// the in-memory seat inventory - are turned away without touching the database.
+// The rest pass a fair semaphore, so at most `concurrency` bookings per schedule
+// run at once and the others wait in arrival order. When `queue-capacity` are
+// already waiting, or a wait exceeds `max-wait-ms`, the request is rejected with
+// a retry-after hint.
+@Component
+public class BookingAdmissionController {
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    private final int concurrency;
+    private final int queueCapacity;
+    private final long maxWaitMs;
+    private final long soldOutRetryAfterSeconds;
+
+    // Gates exist only while a booking for the schedule is running or waiting
+    private final ConcurrentHashMap<Long, Gate> gates = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedSoldOut = new LongAdder();
+    private final LongAdder rejectedSeatTaken = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public BookingAdmissionController(
+            @Value("${smartfare.booking.admission.concurrency:4}") int concurrency,
+            @Value("${smartfare.booking.admission.queue-capacity:100}") int queueCapacity,
+            @Value("${smartfare.booking.admission.max-wait-ms:2000}") long maxWaitMs,
+            @Value("${smartfare.booking.admission.sold-out-retry-after-seconds:60}") long soldOutRetryAfterSeconds) {
+        if (concurrency < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Admission concurrency must be at least 1 and queue capacity not negative");
+        }
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitMs = maxWaitMs;
+        this.soldOutRetryAfterSeconds = soldOutRetryAfterSeconds;
+    }
+
+    public <T> T admit(Long scheduleId, Collection<String> seatNumbers, Supplier<T> booking) {
+        precheck(scheduleId, seatNumbers);
+
+        Gate gate = gates.compute(scheduleId, (id, existing) -> {
+            Gate g = existing != null ? existing : new Gate(concurrency);
+            g.users++;
+            return g;
+        });
+        try {
+            acquire(gate);
+            try {
+                // the schedule may have sold out while this request was waiting
+                precheck(scheduleId, seatNumbers);
+                admitted.increment();
+                return booking.get();
+            } finally {
+                gate.permits.release();
+            }
+        } finally {
+            gates.computeIfPresent(scheduleId, (id, g) -> --g.users == 0 ? null : g);
+        }
+    }
+
+    private void precheck(Long scheduleId, Collection<String> seatNumbers) {
+        SeatInventory inventory = seatInventoryService.findInventory(scheduleId);
+        if (inventory == null) {
+            return;
+        }
+        int available = inventory.getAvailableSeats();
+        if (available == 0) {
+            rejectedSoldOut.increment();
+            throw new BookingRejectedException("Bus is sold out", soldOutRetryAfterSeconds);
+        }
+        for (String seatNumber : seatNumbers) {
+            if (inventory.isBooked(inventory.indexOf(seatNumber))) {
+                rejectedSeatTaken.increment();
+                throw new RuntimeException("Seat already booked: " + seatNumber);
+            }
+        }
+        if (available < seatNumbers.size()) {
+            rejectedSoldOut.increment();
+            throw new RuntimeException("Bus not available or no seats left");
+        }
+    }
+
+    private void acquire(Gate gate) {
+        try {
+            // a zero timeout still honours the fair ordering, unlike tryAcquire()
+            if (gate.permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            if (gate.waiting.incrementAndGet() > queueCapacity) {
+                gate.waiting.decrementAndGet();
+                rejectedQueueFull.increment();
+                throw new BookingRejectedException("Too many bookings in progress for this bus, please retry", 1);
+            }
+            maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+            long start = System.nanoTime();
+            try {
+                if (!gate.permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                    rejectedTimeout.increment();
+                    throw new BookingRejectedException("Booking queue for this bus is busy, please retry", 1);
+                }
+            } finally {
+                gate.waiting.decrementAndGet();
+                queued.decrementAndGet();
+                long waited = System.nanoTime() - start;
+                waits.increment();
+                waitNanos.add(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to book", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> busiest = new HashMap<>();
+        gates.forEach((scheduleId, gate) -> {
+            int waiting = gate.waiting.get();
+            if (waiting > 0) {
+                busiest.put(scheduleId.toString(), waiting);
+            }
+        });
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("concurrencyPerSchedule", concurrency);
+        stats.put("queueCapacityPerSchedule", queueCapacity);
+        stats.put("maxWaitMs", maxWaitMs);
+        stats.put("activeSchedules", gates.size());
+        stats.put("queueDepth", queued.get());
+        stats.put("maxQueueDepth", maxQueued.get());
+        stats.put("queueDepthBySchedule", busiest);
+        stats.put("admitted", admitted.sum());
+        stats.put("rejectedSoldOut", rejectedSoldOut.sum());
+        stats.put("rejectedSeatTaken", rejectedSeatTaken.sum());
+        stats.put("rejectedQueueFull", rejectedQueueFull.sum());
+        stats.put("rejectedTimeout", rejectedTimeout.sum());
+        long waitCount = waits.sum();
+        stats.put("queued", waitCount);
+        stats.put("avgQueueWaitMillis", waitCount == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / waitCount);
+        stats.put("maxQueueWaitMillis", maxWaitNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private static final class Gate {
+        final Semaphore permits;
+        final AtomicInteger waiting = new AtomicInteger();
+        // guarded by the map's compute
+        int users;
+
+        Gate(int concurrency) {
+            this.permits = new Semaphore(concurrency, true);
+        }
+    }
+}
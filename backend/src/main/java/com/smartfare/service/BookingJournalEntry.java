@@ -0,0 +1,90 @@
+package com.smartfare.service;
+
+import com.smartfare.model.Booking;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// One booking request as written to the booking journal: everything needed to
+// insert its rows later, one Seat per booking. Fares are kept in paise.
+public record BookingJournalEntry(Long scheduleId, String passengerName, String passengerPhone,
+                                  long farePaise, long bookedAtMillis, List<Seat> seats) {
+
+    private static final int VERSION = 1;
+
+    public record Seat(String bookingReference, String seatNumber, String qrCodeData) {}
+
+    // Bookings from one request share schedule, passenger and fare
+    public static BookingJournalEntry of(List<Booking> bookings) {
+        Booking first = bookings.get(0);
+        List<Seat> seats = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            seats.add(new Seat(booking.getBookingReference(), booking.getSeatNumber(), booking.getQrCodeData()));
+        }
+        return new BookingJournalEntry(first.getSchedule().getId(),
+            first.getPassenger().getName(), first.getPassenger().getPhone(),
+            first.getFareAmount().movePointRight(2).longValueExact(),
+            first.getBookingDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), seats);
+    }
+
+    public BigDecimal fare() {
+        return BigDecimal.valueOf(farePaise, 2);
+    }
+
+    public LocalDateTime bookedAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(bookedAtMillis), ZoneId.systemDefault());
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(scheduleId);
+            out.writeUTF(passengerName);
+            out.writeUTF(passengerPhone);
+            out.writeLong(farePaise);
+            out.writeLong(bookedAtMillis);
+            out.writeShort(seats.size());
+            for (Seat seat : seats) {
+                out.writeUTF(seat.bookingReference());
+                out.writeUTF(seat.seatNumber());
+                out.writeUTF(seat.qrCodeData());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static BookingJournalEntry decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported booking journal entry version " + version);
+            }
+            Long scheduleId = in.readLong();
+            String passengerName = in.readUTF();
+            String passengerPhone = in.readUTF();
+            long farePaise = in.readLong();
+            long bookedAtMillis = in.readLong();
+            int count = in.readUnsignedShort();
+            List<Seat> seats = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                seats.add(new Seat(in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+            return new BookingJournalEntry(scheduleId, passengerName, passengerPhone,
+                farePaise, bookedAtMillis, seats);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt booking journal entry", e);
+        }
+    }
+}
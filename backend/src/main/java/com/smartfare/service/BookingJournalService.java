@@ -0,0 +1,560 @@
+package com.smartfare.service;
+
+import com.smartfare.exception.BookingRejectedException;
+import com.smartfare.model.Booking;
+import com.smartfare.model.BusSchedule;
+import com.smartfare.model.Passenger;
+import com.smartfare.repository.BookingRepository;
+import com.smartfare.repository.BusScheduleRepository;
+import com.smartfare.repository.PassengerRepository;
+import com.smartfare.util.AppendOnlyJournal;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+// Write-behind booking store (smartfare.booking.journal.enabled). A booking is
+// acknowledged once its entry is durable in the local AppendOnlyJournal; a single
+// projector thread then writes entries to the bookings, passengers and
+// bus_schedules tables in batches, one transaction per batch, and checkpoints the
+// journal behind them. Until then the bookings are served from memory.
+//
+// On startup, entries after the checkpoint are projected again before bookings are
+// accepted. Projection skips references already in the database, so an entry
+// applied just before a crash is not inserted twice.
+//
+// When a batch fails while the database is reachable, its entries are projected
+// one at a time so the others go through. An entry that still fails on its own
+// after `max-attempts` tries is parked: saved under parked/ in the journal
+// directory, dropped from the pending bookings and reported in the stats, and the
+// checkpoint moves past it.
+@Service
+public class BookingJournalService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private BusScheduleRepository busScheduleRepository;
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private record Appended(long sequence, BookingJournalEntry entry) {}
+
+    private record Failing(Appended appended, int attempts) {}
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int groupCommitMax;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private AppendOnlyJournal journal;
+    private Thread projector;
+    private volatile boolean ready;
+    private volatile boolean running;
+
+    private final LinkedBlockingQueue<Appended> unprojected = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, Booking> pending = new ConcurrentHashMap<>();
+    // Detached rows with route and bus, read once per schedule for new bookings
+    private final ConcurrentHashMap<Long, BusSchedule> schedules = new ConcurrentHashMap<>();
+    private final Object projectedMonitor = new Object();
+    // Projector state, touched by start() before the projector thread exists and
+    // by that thread afterwards. Entries can be projected out of sequence order, so
+    // the checkpoint only advances over a contiguous run of projected sequences.
+    private final TreeSet<Long> projectedAhead = new TreeSet<>();
+    private final LinkedHashMap<Long, Failing> failing = new LinkedHashMap<>();
+    private final ConcurrentHashMap<Long, String> parked = new ConcurrentHashMap<>();
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder projected = new LongAdder();
+    private final LongAdder projectedBookings = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final LongAdder skippedExisting = new LongAdder();
+    private final LongAdder seatCountMismatches = new LongAdder();
+    private final LongAdder projectionFailures = new LongAdder();
+    private final LongAdder parkedEntries = new LongAdder();
+    private volatile int failingEntries;
+    private final AtomicLong projectedThrough = new AtomicLong();
+
+    public BookingJournalService(@Value("${smartfare.booking.journal.enabled:false}") boolean enabled,
+                                 @Value("${smartfare.booking.journal.directory:./data/journal}") String directory,
+                                 @Value("${smartfare.booking.journal.segment-mb:64}") int segmentMb,
+                                 @Value("${smartfare.booking.journal.group-commit-max:256}") int groupCommitMax,
+                                 @Value("${smartfare.booking.journal.projector-batch-size:500}") int batchSize,
+                                 @Value("${smartfare.booking.journal.max-attempts:5}") int maxAttempts) {
+        if (segmentMb < 1 || segmentMb > 1024 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Journal segments must be 1-1024 MB, projector batches and attempts at least 1");
+        }
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentMb * 1024 * 1024;
+        this.groupCommitMax = groupCommitMax;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Before other startup work that reads bookings
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new AppendOnlyJournal(directory, segmentBytes, groupCommitMax);
+        projectedThrough.set(journal.checkpointSequence());
+
+        // Bring the tables up to date before taking new bookings
+        List<Appended> backlog = new ArrayList<>();
+        journal.replay(journal.checkpointSequence(), entry -> {
+            backlog.add(new Appended(entry.sequence(), BookingJournalEntry.decode(entry.payload())));
+            replayed.increment();
+            if (backlog.size() == batchSize) {
+                replayBatch(backlog);
+                backlog.clear();
+            }
+        });
+        if (!backlog.isEmpty()) {
+            replayBatch(backlog);
+        }
+        while (!failing.isEmpty()) {
+            sleep(1000);
+            if (!databaseReachable()) {
+                throw new IllegalStateException("Booking journal replay failed: database unavailable");
+            }
+            retryFailing();
+        }
+
+        running = true;
+        projector = new Thread(this::runProjector, "journal-projector");
+        projector.setDaemon(true);
+        projector.start();
+        ready = true;
+        System.out.println("📒 Booking journal ready in " + directory.toAbsolutePath()
+            + " (through sequence " + journal.lastSequence() + ", " + replayed.sum() + " replayed)");
+    }
+
+    // Read through to the database; the cached row's seat count is not kept up to date
+    public BusSchedule getSchedule(Long scheduleId) {
+        BusSchedule schedule = schedules.get(scheduleId);
+        if (schedule != null) {
+            return schedule;
+        }
+        return schedules.computeIfAbsent(scheduleId, busService::getBusScheduleById);
+    }
+
+    // Returns once the bookings are durable in the journal
+    public void append(List<Booking> bookings) {
+        if (!ready) {
+            throw new BookingRejectedException("Booking journal is starting, please retry", 1);
+        }
+        BookingJournalEntry entry = BookingJournalEntry.of(bookings);
+        long sequence;
+        try {
+            sequence = journal.append(entry.encode()).join();
+        } catch (CompletionException e) {
+            System.err.println("Booking journal append failed: " + e.getCause().getMessage());
+            throw new RuntimeException("Booking could not be recorded, please retry");
+        }
+        for (Booking booking : bookings) {
+            pending.put(booking.getBookingReference(), booking);
+        }
+        appended.increment();
+        unprojected.add(new Appended(sequence, entry));
+    }
+
+    // Bookings acknowledged but not yet in the database
+    public Booking findPending(String bookingReference) {
+        return pending.get(bookingReference);
+    }
+
+    public List<Booking> findPendingByPhone(String phone) {
+        List<Booking> bookings = new ArrayList<>();
+        for (Booking booking : pending.values()) {
+            if (booking.getPassenger().getPhone().equals(phone)) {
+                bookings.add(booking);
+            }
+        }
+        return bookings;
+    }
+
+    public boolean awaitProjected(String bookingReference, Duration timeout) {
+        return await(() -> !pending.containsKey(bookingReference), timeout);
+    }
+
+    // Waits until every acknowledged booking is in the database
+    public boolean flush(Duration timeout) {
+        return await(pending::isEmpty, timeout);
+    }
+
+    // Departures on that date may have been retimed or moved to another bus
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.affectsAllRoutes()) {
+            schedules.values().removeIf(schedule -> schedule.getScheduleDate().equals(event.scheduleDate()));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long batchCount = batches.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("appended", appended.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("pendingBookings", pending.size());
+        stats.put("unprojectedEntries", unprojected.size());
+        stats.put("projectedEntries", projected.sum());
+        stats.put("projectedBookings", projectedBookings.sum());
+        stats.put("projectorBatches", batchCount);
+        stats.put("avgBatchMillis", batchCount == 0 ? 0.0 : batchNanos.sum() / batchCount / 1_000_000.0);
+        stats.put("skippedExisting", skippedExisting.sum());
+        stats.put("seatCountMismatches", seatCountMismatches.sum());
+        stats.put("projectionFailures", projectionFailures.sum());
+        stats.put("failingEntries", failingEntries);
+        stats.put("parkedEntries", parkedEntries.sum());
+        stats.put("parked", new TreeMap<>(parked));
+        stats.put("projectedThrough", projectedThrough.get());
+        stats.put("cachedSchedules", schedules.size());
+        if (journal != null) {
+            stats.put("journal", journal.getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        ready = false;
+        running = false;
+        if (projector != null) {
+            try {
+                projector.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void runProjector() {
+        List<Appended> batch = new ArrayList<>(batchSize);
+        long nextRetry = 0;
+        while (running || !unprojected.isEmpty()) {
+            if (batch.isEmpty()) {
+                try {
+                    Appended first = unprojected.poll(100, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        unprojected.drainTo(batch, batchSize - 1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                if (projectEntries(batch)) {
+                    batch.clear();
+                } else if (!running) {
+                    // left in the journal for the next startup
+                    return;
+                } else {
+                    sleep(1000);
+                    continue;
+                }
+            }
+
+            if (!failing.isEmpty() && System.currentTimeMillis() >= nextRetry) {
+                retryFailing();
+                nextRetry = System.currentTimeMillis() + 1000;
+            }
+        }
+    }
+
+    // A replayed batch has to get through (or be parked) before bookings are taken
+    private void replayBatch(List<Appended> batch) {
+        if (!projectEntries(batch)) {
+            throw new IllegalStateException("Booking journal replay failed: database unavailable");
+        }
+    }
+
+    // Projects the batch in one transaction. If that fails and the database is
+    // reachable, each entry is projected on its own and the ones that fail again
+    // are left to retryFailing(). Returns false, with nothing projected, when the
+    // database cannot be reached.
+    private boolean projectEntries(List<Appended> batch) {
+        RuntimeException failure = project(batch);
+        if (failure != null) {
+            if (!databaseReachable()) {
+                return false;
+            }
+            for (Appended appendedEntry : batch) {
+                if (batch.size() == 1 || project(List.of(appendedEntry)) != null) {
+                    failing.put(appendedEntry.sequence(), new Failing(appendedEntry, 1));
+                } else {
+                    projectedAhead.add(appendedEntry.sequence());
+                }
+            }
+        } else {
+            for (Appended appendedEntry : batch) {
+                projectedAhead.add(appendedEntry.sequence());
+            }
+        }
+        failingEntries = failing.size();
+        advanceCheckpoint();
+        return true;
+    }
+
+    private void retryFailing() {
+        for (Map.Entry<Long, Failing> retry : failing.entrySet()) {
+            Failing entry = retry.getValue();
+            RuntimeException failure = project(List.of(entry.appended()));
+            if (failure == null) {
+                projectedAhead.add(retry.getKey());
+            } else if (!databaseReachable()) {
+                // not this entry's fault; try again later without counting it
+                break;
+            } else if (entry.attempts() + 1 >= maxAttempts) {
+                park(entry.appended(), failure);
+                projectedAhead.add(retry.getKey());
+            } else {
+                retry.setValue(new Failing(entry.appended(), entry.attempts() + 1));
+            }
+        }
+        failing.keySet().removeAll(projectedAhead);
+        failingEntries = failing.size();
+        advanceCheckpoint();
+    }
+
+    // Keeps the entry for an operator and lets projection move on without it. Its
+    // seats stay claimed in the seat inventory.
+    private void park(Appended appendedEntry, RuntimeException failure) {
+        List<String> references = new ArrayList<>();
+        for (BookingJournalEntry.Seat seat : appendedEntry.entry().seats()) {
+            references.add(seat.bookingReference());
+        }
+        Path parkedDirectory = directory.resolve("parked");
+        try {
+            Files.createDirectories(parkedDirectory);
+            Files.write(parkedDirectory.resolve(String.format("entry-%020d.bin", appendedEntry.sequence())),
+                appendedEntry.entry().encode());
+        } catch (IOException e) {
+            System.err.println("Booking journal: could not save parked entry " + appendedEntry.sequence() + ": " + e.getMessage());
+        }
+        for (String reference : references) {
+            pending.remove(reference);
+        }
+        Throwable cause = failure;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        parked.put(appendedEntry.sequence(), String.join(",", references) + ": " + cause.getMessage());
+        parkedEntries.increment();
+        System.err.println("⚠️ Booking journal: parked entry " + appendedEntry.sequence() + " " + references
+            + " after " + maxAttempts + " failed projections: " + cause.getMessage());
+        synchronized (projectedMonitor) {
+            projectedMonitor.notifyAll();
+        }
+    }
+
+    private void advanceCheckpoint() {
+        long through = projectedThrough.get();
+        while (!projectedAhead.isEmpty() && projectedAhead.first() <= through + 1) {
+            through = Math.max(through, projectedAhead.pollFirst());
+        }
+        checkpoint(through);
+    }
+
+    private RuntimeException project(List<Appended> batch) {
+        try {
+            projectBatch(batch);
+            return null;
+        } catch (RuntimeException e) {
+            projectionFailures.increment();
+            System.err.println("Booking journal projection failed, will retry: " + e.getMessage());
+            return e;
+        }
+    }
+
+    private boolean databaseReachable() {
+        try {
+            bookingRepository.existsById(0L);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void projectBatch(List<Appended> batch) {
+        long start = System.nanoTime();
+        Map<Long, Integer> seatsBySchedule = transactionTemplate.execute(status -> apply(batch));
+
+        for (Long scheduleId : seatsBySchedule.keySet()) {
+            BusSchedule schedule = getSchedule(scheduleId);
+            if (schedule != null) {
+                eventPublisher.publishEvent(ScheduleChangedEvent.of(schedule));
+            }
+        }
+        for (Appended appendedEntry : batch) {
+            for (BookingJournalEntry.Seat seat : appendedEntry.entry().seats()) {
+                pending.remove(seat.bookingReference());
+            }
+        }
+
+        projected.add(batch.size());
+        batches.increment();
+        batchNanos.add(System.nanoTime() - start);
+        synchronized (projectedMonitor) {
+            projectedMonitor.notifyAll();
+        }
+    }
+
+    // Inserts the batch's bookings and returns the seats taken per schedule
+    private Map<Long, Integer> apply(List<Appended> batch) {
+        Set<String> phones = new HashSet<>();
+        List<String> references = new ArrayList<>();
+        for (Appended appendedEntry : batch) {
+            phones.add(appendedEntry.entry().passengerPhone());
+            for (BookingJournalEntry.Seat seat : appendedEntry.entry().seats()) {
+                references.add(seat.bookingReference());
+            }
+        }
+        Set<String> existing = new HashSet<>(bookingRepository.findExistingReferences(references));
+        skippedExisting.add(existing.size());
+
+        Map<String, Passenger> passengers = new LinkedHashMap<>();
+        for (Passenger passenger : passengerRepository.findByPhoneIn(phones)) {
+            passengers.put(passenger.getPhone(), passenger);
+        }
+
+        List<Booking> bookings = new ArrayList<>();
+        Map<Long, Integer> seatsBySchedule = new HashMap<>();
+        for (Appended appendedEntry : batch) {
+            BookingJournalEntry entry = appendedEntry.entry();
+            // Same rule as a direct booking: the latest name given for a phone wins
+            Passenger passenger = passengers.computeIfAbsent(entry.passengerPhone(),
+                phone -> new Passenger(entry.passengerName(), phone));
+            if (!passenger.getName().equals(entry.passengerName())) {
+                passenger.setName(entry.passengerName());
+            }
+
+            for (BookingJournalEntry.Seat seat : entry.seats()) {
+                if (existing.contains(seat.bookingReference())) {
+                    continue;
+                }
+                Booking booking = new Booking();
+                booking.setBookingReference(seat.bookingReference());
+                booking.setPassenger(passenger);
+                booking.setSchedule(busScheduleRepository.getReferenceById(entry.scheduleId()));
+                booking.setSeatNumber(seat.seatNumber());
+                booking.setFareAmount(entry.fare());
+                booking.setQrCodeData(seat.qrCodeData());
+                booking.setBookingDate(entry.bookedAt());
+                bookings.add(booking);
+                seatsBySchedule.merge(entry.scheduleId(), 1, Integer::sum);
+            }
+        }
+
+        passengerRepository.saveAll(passengers.values());
+        bookingRepository.saveAll(bookings);
+
+        // The seat inventory already holds these seats; the stored count follows it
+        for (Map.Entry<Long, Integer> seats : seatsBySchedule.entrySet()) {
+            if (busScheduleRepository.decrementAvailableSeats(seats.getKey(), seats.getValue()) == 0) {
+                seatCountMismatches.increment();
+                System.err.println("⚠️ Booking journal: schedule " + seats.getKey()
+                    + " had fewer than " + seats.getValue() + " seats left to decrement");
+            }
+        }
+        projectedBookings.add(bookings.size());
+        return seatsBySchedule;
+    }
+
+    private void checkpoint(long sequence) {
+        if (sequence <= journal.checkpointSequence()) {
+            return;
+        }
+        projectedThrough.set(sequence);
+        try {
+            journal.checkpoint(sequence);
+            journal.compact();
+        } catch (IOException e) {
+            // projection is idempotent, so a stale checkpoint only means more replay
+            System.err.println("Booking journal checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    private boolean await(BooleanSupplier done, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (projectedMonitor) {
+            while (!done.getAsBoolean()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    projectedMonitor.wait(Math.min(remaining, 50));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
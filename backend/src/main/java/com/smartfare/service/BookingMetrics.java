@@ -0,0 +1,58 @@
+package com.smartfare.service;
+
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class BookingMetrics {
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder lockConflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriesExhausted = new LongAdder();
+    private final LongAdder seatCountConflicts = new LongAdder();
+
+    public void recordAttempt() {
+        attempts.increment();
+    }
+
+    public void recordSuccess() {
+        succeeded.increment();
+    }
+
+    public void recordLockConflict() {
+        lockConflicts.increment();
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordRetriesExhausted() {
+        retriesExhausted.increment();
+    }
+
+    // The conditional seat decrement matched no row: the database had fewer
+    // seats than the in-memory inventory expected
+    public void recordSeatCountConflict() {
+        seatCountConflicts.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long attemptCount = attempts.sum();
+        long conflictCount = lockConflicts.sum() + seatCountConflicts.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("attempts", attemptCount);
+        stats.put("succeeded", succeeded.sum());
+        stats.put("lockConflicts", lockConflicts.sum());
+        stats.put("seatCountConflicts", seatCountConflicts.sum());
+        stats.put("retries", retries.sum());
+        stats.put("retriesExhausted", retriesExhausted.sum());
+        stats.put("conflictRate", attemptCount == 0 ? 0.0 : (double) conflictCount / attemptCount);
+        return stats;
+    }
+}
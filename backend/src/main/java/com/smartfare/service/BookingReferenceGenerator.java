@@ -0,0 +1,67 @@
+package com.smartfare.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Booking references as Snowflake-style ids: 41 bits of milliseconds since
+// 2024-01-01, a 10-bit node id and a 12-bit counter, written as "SF" plus 13
+// Crockford Base32 characters. Ids from one node only ever increase, so they never
+// repeat; nodes sharing a database need distinct smartfare.booking.node-id values.
+@Component
+public class BookingReferenceGenerator {
+
+    private static final String PREFIX = "SF";
+    private static final int LENGTH = PREFIX.length() + 13;
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeBits;
+
+    // (millis << SEQUENCE_BITS | counter) of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public BookingReferenceGenerator(@Value("${smartfare.booking.node-id:0}") int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Booking node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public String next() {
+        return encode(nextId());
+    }
+
+    // Lock-free: the clock value when it has moved on, otherwise one past the last
+    // id. A burst of more than 4096 in a millisecond borrows from the next one
+    // instead of waiting, and a clock that steps back cannot produce a repeat.
+    long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            next = Math.max(now, previous + 1);
+        } while (!last.compareAndSet(previous, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        long counter = next & ((1L << SEQUENCE_BITS) - 1);
+        return millis << (NODE_BITS + SEQUENCE_BITS) | nodeBits | counter;
+    }
+
+    // Fixed width, so references sort in the order they were issued
+    static String encode(long id) {
+        char[] out = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), out, 0);
+        for (int i = LENGTH - 1; i >= PREFIX.length(); i--) {
+            out[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+}
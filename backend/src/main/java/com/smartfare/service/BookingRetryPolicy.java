@@ -0,0 +1,58 @@
+package com.smartfare.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Re-runs a booking transaction that lost a lock or deadlock race, with
+// exponential backoff and full jitter between attempts.
+@Component
+public class BookingRetryPolicy {
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Value("${smartfare.booking.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${smartfare.booking.retry.initial-backoff-ms:10}")
+    private long initialBackoffMs;
+
+    @Value("${smartfare.booking.retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    public <T> T execute(Supplier<T> transaction) {
+        int attempt = 1;
+        while (true) {
+            bookingMetrics.recordAttempt();
+            try {
+                T result = transaction.get();
+                bookingMetrics.recordSuccess();
+                return result;
+            } catch (ConcurrencyFailureException e) {
+                bookingMetrics.recordLockConflict();
+                if (attempt >= maxAttempts) {
+                    bookingMetrics.recordRetriesExhausted();
+                    throw new RuntimeException("Booking could not be completed due to high demand, please retry", e);
+                }
+                bookingMetrics.recordRetry();
+                backoff(attempt);
+                attempt++;
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 16));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying booking", e);
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.smartfare.service;
 
+import com.smartfare.dto.TicketPayload;
+import com.smartfare.exception.BookingRejectedException;
 import com.smartfare.model.Booking;
 import com.smartfare.model.BusSchedule;
 import com.smartfare.model.Passenger;
 import com.smartfare.repository.BookingRepository;
 import com.smartfare.repository.PassengerRepository;
+import com.smartfare.util.SeatInventory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 public class BookingService {
@@ -27,10 +37,171 @@ public class BookingService {
     @Autowired
     private QRCodeService qrCodeService;
     
-    @Transactional
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private BookingRetryPolicy bookingRetryPolicy;
+    
+    @Autowired
+    private BookingMetrics bookingMetrics;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private QRPreRenderer qrPreRenderer;
+    
+    @Autowired
+    private TicketPayloadCodec ticketPayloadCodec;
+    
+    @Autowired
+    private BookingReferenceGenerator bookingReferenceGenerator;
+    
+    @Autowired
+    private BookingAdmissionController bookingAdmissionController;
+    
+    @Autowired
+    private FarePricingService farePricingService;
+    
+    @Autowired
+    private BookingJournalService bookingJournalService;
+    
+    @Autowired
+    private SeatHoldService seatHoldService;
+    
+    private static final int MAX_GROUP_SIZE = 10;
+    private static final String CONFIRMED_SEAT_INDEX = "uk_bookings_confirmed_seat";
+    
     public Booking createBooking(String passengerName, String passengerPhone, 
                                Long scheduleId, String seatNumber) {
+        if (bookingJournalService.isEnabled()) {
+            return bookingAdmissionController.admit(scheduleId, Collections.singletonList(seatNumber), () ->
+                journalBookings(passengerName, passengerPhone, scheduleId, Collections.singletonList(seatNumber)).get(0));
+        }
+        
+        // Each attempt runs in its own transaction so a lock conflict can be retried;
+        // admission turns away requests that cannot succeed before any of that
+        return bookingAdmissionController.admit(scheduleId, Collections.singletonList(seatNumber), () ->
+            bookingRetryPolicy.execute(() -> inTransaction(Collections.singletonList(seatNumber), () ->
+                doCreateBooking(passengerName, passengerPhone, scheduleId, seatNumber))));
+    }
+    
+    private Booking doCreateBooking(String passengerName, String passengerPhone, 
+                                    Long scheduleId, String seatNumber) {
+        
+        Passenger passenger = findOrCreatePassenger(passengerName, passengerPhone);
+        BusSchedule schedule = getBookableSchedule(scheduleId, 1);
+        
+        // Priced on the seats left before this booking, as search showed them
+        BigDecimal fare = farePricingService.quote(schedule).fare();
+        
+        // Claim the seat in memory; released again if this transaction rolls back
+        seatInventoryService.claimSeat(schedule, seatNumber);
+        
+        // Save booking
+        Booking booking = bookingRepository.save(newBooking(passenger, schedule, seatNumber, fare));
+        
+        // Update available seats
+        reduceAvailableSeats(schedule, 1);
+        
+        // Ticket image is rendered in the background once this commits, and the
+        // seat is held until payment or the end of the payment window
+        qrPreRenderer.submit(booking.getBookingReference(), booking.getQrCodeData());
+        seatHoldService.hold(booking);
+        
+        return booking;
+    }
+    
+    public List<Booking> createGroupBooking(String passengerName, String passengerPhone,
+                                            Long scheduleId, List<String> seatNumbers) {
+        if (seatNumbers == null || seatNumbers.isEmpty()) {
+            throw new IllegalArgumentException("At least one seat is required");
+        }
+        if (seatNumbers.size() > MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException("A group booking can have at most " + MAX_GROUP_SIZE + " seats");
+        }
+        if (new HashSet<>(seatNumbers).size() != seatNumbers.size()) {
+            throw new IllegalArgumentException("Duplicate seat numbers in request");
+        }
+        
+        if (bookingJournalService.isEnabled()) {
+            return bookingAdmissionController.admit(scheduleId, seatNumbers, () ->
+                journalBookings(passengerName, passengerPhone, scheduleId, seatNumbers));
+        }
+        
+        return bookingAdmissionController.admit(scheduleId, seatNumbers, () ->
+            bookingRetryPolicy.execute(() -> inTransaction(seatNumbers, () ->
+                doCreateGroupBooking(passengerName, passengerPhone, scheduleId, seatNumbers))));
+    }
+    
+    private List<Booking> doCreateGroupBooking(String passengerName, String passengerPhone,
+                                               Long scheduleId, List<String> seatNumbers) {
+        
+        Passenger passenger = findOrCreatePassenger(passengerName, passengerPhone);
+        BusSchedule schedule = getBookableSchedule(scheduleId, seatNumbers.size());
+        
+        // Every seat in the group gets the same fare
+        BigDecimal fare = farePricingService.quote(schedule).fare();
+        
+        // All seats or none
+        seatInventoryService.claimSeats(schedule, seatNumbers);
+        
+        List<Booking> bookings = new ArrayList<>(seatNumbers.size());
+        for (String seatNumber : seatNumbers) {
+            bookings.add(newBooking(passenger, schedule, seatNumber, fare));
+        }
+        
+        // Sequence ids let Hibernate send every row in one JDBC batch; then a single seat decrement
+        bookings = bookingRepository.saveAll(bookings);
+        reduceAvailableSeats(schedule, seatNumbers.size());
+        
+        for (Booking booking : bookings) {
+            qrPreRenderer.submit(booking.getBookingReference(), booking.getQrCodeData());
+            seatHoldService.hold(booking);
+        }
+        
+        return bookings;
+    }
+    
+    // Journal mode: no database work before responding. The seats are claimed in
+    // memory, the bookings are durable once appended, and the projector writes
+    // them to the tables afterwards.
+    private List<Booking> journalBookings(String passengerName, String passengerPhone,
+                                          Long scheduleId, List<String> seatNumbers) {
+        
+        BusSchedule schedule = bookingJournalService.getSchedule(scheduleId);
+        if (schedule == null) {
+            throw new RuntimeException("Bus not available or no seats left");
+        }
+        SeatInventory inventory = seatInventoryService.getInventory(schedule);
+        BigDecimal fare = farePricingService.quote(schedule, inventory.getAvailableSeats()).fare();
+        
+        // No transaction here, so a failed append has to hand the seats back itself
+        SeatInventory claimed = seatInventoryService.claimSeats(schedule, seatNumbers);
+        
+        // Passenger is matched by phone when the booking is projected
+        Passenger passenger = new Passenger(passengerName, passengerPhone);
+        List<Booking> bookings = new ArrayList<>(seatNumbers.size());
+        for (String seatNumber : seatNumbers) {
+            bookings.add(newBooking(passenger, schedule, seatNumber, fare));
+        }
         
+        try {
+            bookingJournalService.append(bookings);
+        } catch (RuntimeException e) {
+            seatInventoryService.releaseSeats(claimed, seatNumbers);
+            throw e;
+        }
+        
+        for (Booking booking : bookings) {
+            qrPreRenderer.submit(booking.getBookingReference(), booking.getQrCodeData());
+            seatHoldService.hold(booking);
+        }
+        return bookings;
+    }
+    
+    private Passenger findOrCreatePassenger(String passengerName, String passengerPhone) {
         // Find or create passenger
         Passenger passenger = passengerRepository.findByPhone(passengerPhone)
             .orElse(new Passenger(passengerName, passengerPhone));
@@ -40,72 +211,131 @@ public class BookingService {
             passenger.setName(passengerName);
         }
         
-        passenger = passengerRepository.save(passenger);
-        
-        // Get bus schedule
+        return passengerRepository.save(passenger);
+    }
+    
+    private BusSchedule getBookableSchedule(Long scheduleId, int seats) {
         BusSchedule schedule = busService.getBusScheduleById(scheduleId);
-        if (schedule == null || schedule.getAvailableSeats() <= 0) {
+        if (schedule == null || schedule.getAvailableSeats() < seats) {
             throw new RuntimeException("Bus not available or no seats left");
         }
-        
-        // Check if seat is already booked
-        List<String> bookedSeats = bookingRepository.findBookedSeatsBySchedule(scheduleId);
-        if (bookedSeats.contains(seatNumber)) {
-            throw new RuntimeException("Seat already booked");
-        }
-        
-        // Create booking
+        return schedule;
+    }
+    
+    private Booking newBooking(Passenger passenger, BusSchedule schedule, String seatNumber, BigDecimal fare) {
         Booking booking = new Booking();
-        booking.setBookingReference(generateBookingReference());
+        booking.setBookingReference(bookingReferenceGenerator.next());
         booking.setPassenger(passenger);
         booking.setSchedule(schedule);
         booking.setSeatNumber(seatNumber);
-        booking.setFareAmount(schedule.getFare());
+        booking.setFareAmount(fare);
         
         // Generate QR code data
-        String qrData = generateQRData(booking);
-        booking.setQrCodeData(qrData);
-        
-        // Save booking
-        booking = bookingRepository.save(booking);
-        
-        // Update available seats
-        busService.updateAvailableSeats(scheduleId, 1);
-        
+        booking.setQrCodeData(generateQRData(booking));
         return booking;
     }
     
+    // The unique index on confirmed seats is the database's own check against a
+    // double booking; report it the way the seat inventory would
+    private <T> T inTransaction(List<String> seatNumbers, Supplier<T> booking) {
+        try {
+            return transactionTemplate.execute(status -> booking.get());
+        } catch (DataIntegrityViolationException e) {
+            if (String.valueOf(e.getMessage()).toLowerCase().contains(CONFIRMED_SEAT_INDEX)) {
+                throw new RuntimeException("Seat already booked: " + String.join(", ", seatNumbers));
+            }
+            throw e;
+        }
+    }
+    
+    private void reduceAvailableSeats(BusSchedule schedule, int seats) {
+        if (!busService.updateAvailableSeats(schedule, seats)) {
+            bookingMetrics.recordSeatCountConflict();
+            seatInventoryService.resyncAvailable(schedule.getId());
+            throw new RuntimeException("Bus not available or no seats left");
+        }
+    }
+    
     public Optional<Booking> getBookingByReference(String bookingReference) {
+        Booking pending = bookingJournalService.findPending(bookingReference);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
         return bookingRepository.findByBookingReference(bookingReference);
     }
     
+    // Gate check: the signature proves the code was issued here, the booking
+    // decides whether it still admits anyone
+    public TicketPayload verifyTicket(String qrData) {
+        TicketPayload payload = ticketPayloadCodec.decode(qrData);
+        Booking booking = getBookingByReference(payload.bookingReference())
+            .orElseThrow(() -> new IllegalArgumentException("No booking for ticket " + payload.bookingReference()));
+        if (!qrData.equals(booking.getQrCodeData())) {
+            throw new IllegalArgumentException("Ticket does not match booking " + payload.bookingReference());
+        }
+        if (booking.getBookingStatus() != Booking.BookingStatus.CONFIRMED) {
+            throw new IllegalStateException("Booking " + payload.bookingReference() + " is " + booking.getBookingStatus());
+        }
+        if (booking.getPaymentStatus() != Booking.PaymentStatus.COMPLETED) {
+            throw new IllegalStateException("Booking " + payload.bookingReference() + " has not been paid");
+        }
+        return payload;
+    }
+    
+    // Cancelled bookings, including expired holds, have no ticket to show
+    public Optional<String> getQRCodeData(String bookingReference) {
+        Booking pending = bookingJournalService.findPending(bookingReference);
+        if (pending != null) {
+            return Optional.of(pending.getQrCodeData());
+        }
+        return bookingRepository.findConfirmedQrCodeDataByBookingReference(bookingReference);
+    }
+    
     public List<Booking> getBookingsByPhone(String phone) {
-        return bookingRepository.findByPassengerPhone(phone);
+        List<Booking> bookings = bookingRepository.findByPassengerPhone(phone);
+        List<Booking> pending = bookingJournalService.findPendingByPhone(phone);
+        if (pending.isEmpty()) {
+            return bookings;
+        }
+        // A booking can be projected between the two reads
+        List<Booking> merged = new ArrayList<>(bookings);
+        Set<String> references = new HashSet<>();
+        for (Booking booking : bookings) {
+            references.add(booking.getBookingReference());
+        }
+        for (Booking booking : pending) {
+            if (references.add(booking.getBookingReference())) {
+                merged.add(booking);
+            }
+        }
+        return merged;
     }
     
     public Booking updatePaymentStatus(String bookingReference, String transactionId) {
-        Optional<Booking> bookingOpt = bookingRepository.findByBookingReference(bookingReference);
-        if (bookingOpt.isPresent()) {
-            Booking booking = bookingOpt.get();
-            booking.setPaymentStatus(Booking.PaymentStatus.COMPLETED);
-            booking.setPaymentTransactionId(transactionId);
-            return bookingRepository.save(booking);
+        // A journalled booking has to reach the table before it can be updated. The
+        // wait happens before the transaction, so it does not hold a connection the
+        // projector needs.
+        if (bookingJournalService.findPending(bookingReference) != null
+                && !bookingJournalService.awaitProjected(bookingReference, Duration.ofSeconds(5))) {
+            throw new BookingRejectedException("Booking is still being recorded, please retry", 1);
         }
-        return null;
+        return transactionTemplate.execute(status -> completePayment(bookingReference, transactionId));
     }
     
-    private String generateBookingReference() {
-        return "SF" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+    // Conditional on the booking still being CONFIRMED, so it cannot race the
+    // expiry of its seat hold
+    private Booking completePayment(String bookingReference, String transactionId) {
+        if (bookingRepository.completePayment(bookingReference, transactionId) == 0) {
+            if (bookingRepository.findByBookingReference(bookingReference).isPresent()) {
+                throw new IllegalStateException("Booking " + bookingReference + " was cancelled, the payment window has closed");
+            }
+            return null;
+        }
+        seatHoldService.release(bookingReference);
+        return bookingRepository.findByBookingReference(bookingReference).orElse(null);
     }
     
     private String generateQRData(Booking booking) {
-        return String.format("BOOKING:%s|PASSENGER:%s|BUS:%s|SEAT:%s|DATE:%s|FARE:%.2f",
-            booking.getBookingReference(),
-            booking.getPassenger().getName(),
-            booking.getSchedule().getBus().getBusNumber(),
-            booking.getSeatNumber(),
-            booking.getSchedule().getScheduleDate(),
-            booking.getFareAmount()
-        );
+        return ticketPayloadCodec.encode(booking);
     }
 }
\ No newline at end of file
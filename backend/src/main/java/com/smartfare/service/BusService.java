@@ -1,13 +1,26 @@
 package com.smartfare.service;
 
+import com.smartfare.dto.FareQuote;
+import com.smartfare.dto.FareQuoteLine;
+import com.smartfare.dto.Journey;
+import com.smartfare.dto.NearbyLocation;
+import com.smartfare.dto.ScheduleSummary;
 import com.smartfare.model.BusSchedule;
 import com.smartfare.model.Location;
 import com.smartfare.repository.BusScheduleRepository;
 import com.smartfare.repository.LocationRepository;
+import com.smartfare.util.SeatInventory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class BusService {
@@ -18,15 +31,44 @@ public class BusService {
     @Autowired
     private LocationRepository locationRepository;
     
+    @Autowired
+    private TimetableService timetableService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private LocationSearchService locationSearchService;
+    
+    @Autowired
+    private NearbyLocationService nearbyLocationService;
+    
+    @Autowired
+    private JourneyPlanner journeyPlanner;
+    
+    @Autowired
+    private FarePricingService farePricingService;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
     public List<Location> getAllLocations() {
         return locationRepository.findAll();
     }
     
-    public List<Location> searchLocations(String searchTerm) {
-        return locationRepository.findByNameOrCityContaining(searchTerm);
+    public List<Location> searchLocations(String searchTerm, int limit) {
+        return locationSearchService.search(searchTerm, limit);
+    }
+    
+    public List<NearbyLocation> findNearbyLocations(double latitude, double longitude, int k, double radiusKm) {
+        return nearbyLocationService.findNearest(latitude, longitude, k, radiusKm);
     }
     
-    public List<BusSchedule> getAvailableBuses(Long fromLocationId, Long toLocationId, LocalDate travelDate) {
+    public List<Journey> planJourneys(Long fromLocationId, Long toLocationId, LocalDate travelDate, LocalTime departAfter) {
+        return journeyPlanner.plan(fromLocationId, toLocationId, travelDate, departAfter);
+    }
+    
+    public List<ScheduleSummary> getAvailableBuses(Long fromLocationId, Long toLocationId, LocalDate travelDate) {
         try {
             if (fromLocationId == null || toLocationId == null || travelDate == null) {
                 throw new IllegalArgumentException("All parameters are required");
@@ -36,8 +78,7 @@ public class BusService {
                 throw new IllegalArgumentException("From and To locations cannot be the same");
             }
             
-            List<BusSchedule> schedules = busScheduleRepository.findAvailableBuses(fromLocationId, toLocationId, travelDate);
-            return schedules != null ? schedules : List.of();
+            return timetableService.findDepartures(fromLocationId, toLocationId, travelDate);
             
         } catch (Exception e) {
             System.err.println("Error in getAvailableBuses: " + e.getMessage());
@@ -47,14 +88,78 @@ public class BusService {
     }
     
     public BusSchedule getBusScheduleById(Long scheduleId) {
-        return busScheduleRepository.findById(scheduleId).orElse(null);
+        return busScheduleRepository.findForBookingById(scheduleId).orElse(null);
+    }
+    
+    public ScheduleSummary getScheduleSummary(Long scheduleId) {
+        ScheduleSummary summary = timetableService.findSchedule(scheduleId);
+        if (summary != null) {
+            return summary;
+        }
+        return busScheduleRepository.findSummaryById(scheduleId)
+            .map(s -> s.withAvailability(s.availableSeats(), farePricingService.quote(s).fare()))
+            .orElse(null);
+    }
+    
+    public FareQuote getFareQuote(Long scheduleId) {
+        ScheduleSummary summary = getScheduleSummary(scheduleId);
+        return summary != null ? farePricingService.quote(summary) : null;
+    }
+    
+    // Fares for a page of results in request order, unknown ids left out. Rows come
+    // from the timetable snapshots with one seat lookup; ids outside them are read
+    // in a single query, then everything is priced in one pass.
+    public List<FareQuoteLine> quoteFares(List<Long> scheduleIds, int seats) {
+        Map<Long, ScheduleSummary> rows = timetableService.findSchedules(scheduleIds);
+        if (rows.size() < new HashSet<>(scheduleIds).size()) {
+            List<Long> missing = new ArrayList<>();
+            for (Long scheduleId : scheduleIds) {
+                if (!rows.containsKey(scheduleId)) {
+                    missing.add(scheduleId);
+                }
+            }
+            // Same rules as the snapshot rows: scheduled departures only, seats from
+            // the inventory when it is loaded
+            for (ScheduleSummary summary : busScheduleRepository.findScheduledSummariesByIds(missing)) {
+                SeatInventory inventory = seatInventoryService.findInventory(summary.id());
+                if (inventory != null) {
+                    summary = summary.withAvailability(inventory.getAvailableSeats(), summary.fare());
+                }
+                rows.put(summary.id(), summary);
+            }
+        }
+        
+        List<ScheduleSummary> found = new ArrayList<>(scheduleIds.size());
+        for (Long scheduleId : scheduleIds) {
+            ScheduleSummary summary = rows.get(scheduleId);
+            if (summary != null) {
+                found.add(summary);
+            }
+        }
+        
+        List<FareQuote> fares = farePricingService.quoteAll(found);
+        List<FareQuoteLine> lines = new ArrayList<>(found.size());
+        BigDecimal seatCount = BigDecimal.valueOf(seats);
+        for (int i = 0; i < found.size(); i++) {
+            ScheduleSummary summary = found.get(i);
+            BigDecimal fare = fares.get(i).fare();
+            lines.add(new FareQuoteLine(summary.id(), seats, fare, fare.multiply(seatCount),
+                summary.availableSeats(), summary.availableSeats() >= seats));
+        }
+        return lines;
     }
     
-    public void updateAvailableSeats(Long scheduleId, int seatsToReduce) {
-        BusSchedule schedule = busScheduleRepository.findById(scheduleId).orElse(null);
-        if (schedule != null) {
-            schedule.setAvailableSeats(schedule.getAvailableSeats() - seatsToReduce);
-            busScheduleRepository.save(schedule);
+    // Single conditional UPDATE, so concurrent bookings can never drive the count
+    // below zero. Returns false when fewer than seatsToReduce seats are left.
+    @Transactional
+    public boolean updateAvailableSeats(BusSchedule schedule, int seatsToReduce) {
+        int updated = busScheduleRepository.decrementAvailableSeats(schedule.getId(), seatsToReduce);
+        if (updated == 0) {
+            return false;
         }
+        // Keep the (now detached) instance in step for the response
+        schedule.setAvailableSeats(schedule.getAvailableSeats() - seatsToReduce);
+        eventPublisher.publishEvent(ScheduleChangedEvent.of(schedule));
+        return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.FareQuote;
+import com.smartfare.dto.ScheduleSummary;
+import com.smartfare.model.BusSchedule;
+import com.smartfare.util.BoundedCache;
+import com.smartfare.util.FareRules;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Prices seats from the route's base fare and distance, the bus type, the share
+// of seats sold and the time left to departure, using the rule table compiled
+// from smartfare.pricing.*. A schedule's quote is cached and handed out again
+// until its occupancy or lead-time bucket moves, so repeat lookups cost a cache
+// read and two bucket checks. The cache is LRU, so when it is full only the
+// least recently quoted schedule has to be priced again.
+@Service
+public class FarePricingService {
+
+    private final FareRules rules;
+    private final int cacheSize;
+
+    private final BoundedCache<Long, Quote> quotes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder repriced = new LongAdder();
+
+    public FarePricingService(@Value("${smartfare.pricing.per-km-paise:10}") long perKmPaise,
+                              @Value("${smartfare.pricing.bus-types:}") String busTypes,
+                              @Value("${smartfare.pricing.default-bus-type-percent:100}") int defaultBusTypePercent,
+                              @Value("${smartfare.pricing.occupancy:0:100}") String occupancy,
+                              @Value("${smartfare.pricing.lead-time-hours:0:100}") String leadTimeHours,
+                              @Value("${smartfare.pricing.max-percent:200}") int maxPercent,
+                              @Value("${smartfare.pricing.round-to-paise:100}") long roundToPaise,
+                              @Value("${smartfare.pricing.cache-size:10000}") int cacheSize) {
+        this.rules = new FareRules(perKmPaise, busTypes, defaultBusTypePercent,
+            occupancy, leadTimeHours, maxPercent, roundToPaise);
+        this.cacheSize = cacheSize;
+        this.quotes = new BoundedCache<>(cacheSize, 0);
+    }
+
+    public FareQuote quote(ScheduleSummary schedule) {
+        return quote(schedule, schedule.availableSeats());
+    }
+
+    // Search passes the live seat count it has just read alongside the snapshot row
+    public FareQuote quote(ScheduleSummary schedule, int availableSeats) {
+        Quote quote = quotes.get(schedule.id());
+        if (quote == null) {
+            quote = newQuote(schedule, basePaise(schedule.route().baseFare(), schedule.route().distanceKm()));
+        }
+        return price(schedule.id(), quote, availableSeats);
+    }
+
+    // One pass over a page of results, each on its own availableSeats. Schedules not
+    // quoted before share the base fare worked out once per route.
+    public List<FareQuote> quoteAll(List<ScheduleSummary> schedules) {
+        List<FareQuote> fares = new ArrayList<>(schedules.size());
+        Map<Long, Long> routeBasePaise = null;
+        for (ScheduleSummary schedule : schedules) {
+            Quote quote = quotes.get(schedule.id());
+            if (quote == null) {
+                if (routeBasePaise == null) {
+                    routeBasePaise = new HashMap<>();
+                }
+                ScheduleSummary.RouteInfo route = schedule.route();
+                long basePaise = routeBasePaise.computeIfAbsent(route.id(),
+                    id -> basePaise(route.baseFare(), route.distanceKm()));
+                quote = newQuote(schedule, basePaise);
+            }
+            fares.add(price(schedule.id(), quote, schedule.availableSeats()));
+        }
+        return fares;
+    }
+
+    // Booking prices the schedule row it has loaded; needs the route and the bus with its type
+    public FareQuote quote(BusSchedule schedule) {
+        return quote(schedule, schedule.getAvailableSeats());
+    }
+
+    // For a cached row whose own seat count is stale, with the inventory's count
+    public FareQuote quote(BusSchedule schedule, int availableSeats) {
+        Quote quote = quotes.get(schedule.getId());
+        if (quote == null) {
+            quote = newQuote(basePaise(schedule.getRoute().getBaseFare(), schedule.getRoute().getDistanceKm()),
+                schedule.getBus().getBusType() != null ? schedule.getBus().getBusType().getTypeName() : null,
+                schedule.getBus().getTotalSeats(), schedule.getScheduleDate(), schedule.getDepartureTime());
+        }
+        return price(schedule.getId(), quote, availableSeats);
+    }
+
+    // Departures were added, removed or retimed on that date; their routes or buses
+    // may differ now. Bookings need nothing here, the seat count comes with each quote.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.affectsAllRoutes()) {
+            quotes.invalidateEntriesIf((scheduleId, quote) -> quote.date().equals(event.scheduleDate()));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cachedQuotes", quotes.size());
+        stats.put("cacheSize", cacheSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("repriced", repriced.sum());
+        stats.put("rules", rules.describe());
+        return stats;
+    }
+
+    private FareQuote price(Long scheduleId, Quote quote, int availableSeats) {
+        int occupancyBucket = rules.occupancyBucket(quote.totalSeats(), availableSeats);
+        int leadTimeBucket = rules.leadTimeBucket((quote.departureMillis() - System.currentTimeMillis()) / 60_000);
+        if (quote.fare() != null && quote.occupancyBucket() == occupancyBucket && quote.leadTimeBucket() == leadTimeBucket) {
+            hits.increment();
+            return quote.fare();
+        }
+
+        if (quote.fare() != null) {
+            repriced.increment();
+        }
+        long paise = rules.price(quote.basePaise(), quote.busTypePercent(), occupancyBucket, leadTimeBucket);
+        FareQuote fare = new FareQuote(scheduleId, BigDecimal.valueOf(paise, 2), BigDecimal.valueOf(quote.basePaise(), 2),
+            quote.busTypePercent(), rules.occupancyPercent(occupancyBucket), rules.leadTimePercent(leadTimeBucket));
+        quotes.put(scheduleId, quote.withFare(occupancyBucket, leadTimeBucket, fare));
+        return fare;
+    }
+
+    // The only place BigDecimal amounts are read; later quotes for the schedule
+    // work from the paise value kept in its Quote
+    private long basePaise(BigDecimal baseFare, BigDecimal distanceKm) {
+        long basePaise = baseFare.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        if (distanceKm != null) {
+            basePaise += distanceKm.multiply(BigDecimal.valueOf(rules.perKmPaise()))
+                .setScale(0, RoundingMode.HALF_UP).longValue();
+        }
+        return basePaise;
+    }
+
+    private Quote newQuote(ScheduleSummary schedule, long basePaise) {
+        ScheduleSummary.BusInfo bus = schedule.bus();
+        return newQuote(basePaise, bus.busType() != null ? bus.busType().typeName() : null, bus.totalSeats(),
+            schedule.scheduleDate(), schedule.departureTime());
+    }
+
+    private Quote newQuote(long basePaise, String busType, Integer totalSeats, LocalDate date, LocalTime departure) {
+        misses.increment();
+        long departureMillis = LocalDateTime.of(date, departure)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new Quote(date, basePaise, rules.busTypePercent(busType),
+            totalSeats != null ? totalSeats : 0, departureMillis, -1, -1, null);
+    }
+
+    // Everything needed to reprice a schedule without touching BigDecimal, plus
+    // the buckets the current fare was priced for
+    private record Quote(LocalDate date, long basePaise, int busTypePercent, int totalSeats, long departureMillis,
+                         int occupancyBucket, int leadTimeBucket, FareQuote fare) {
+
+        Quote withFare(int occupancyBucket, int leadTimeBucket, FareQuote fare) {
+            return new Quote(date, basePaise, busTypePercent, totalSeats, departureMillis,
+                occupancyBucket, leadTimeBucket, fare);
+        }
+    }
+}
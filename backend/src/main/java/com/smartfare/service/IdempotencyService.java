@@ -0,0 +1,258 @@
+package com.smartfare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smartfare.model.IdempotencyRecord;
+import com.smartfare.repository.IdempotencyRecordRepository;
+import com.smartfare.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Request deduplication for clients that send an Idempotency-Key header. The
+// first request with a key runs; its response is kept for `ttl-minutes` and any
+// retry with the same key and body gets that response back without running
+// again. A retry that arrives while the first is still running waits for it.
+//
+// Responses live in a bounded in-memory cache, so a duplicate costs a map lookup.
+// With smartfare.idempotency.persistent they are also written to the
+// idempotency_keys table, which is consulted on a cache miss (after a restart,
+// or when the key was evicted).
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 200;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private record StoredResponse(String requestHash, int status, String body) {}
+
+    private final BoundedCache<String, StoredResponse> responses;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlMinutes;
+    private final long inFlightWaitMs;
+    private final boolean persistent;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder replayedFromStore = new LongAdder();
+    private final LongAdder waitedForInFlight = new LongAdder();
+    private final LongAdder stillInFlight = new LongAdder();
+    private final LongAdder keyReused = new LongAdder();
+    private final LongAdder notStored = new LongAdder();
+
+    public IdempotencyService(@Value("${smartfare.idempotency.max-entries:10000}") int maxEntries,
+                              @Value("${smartfare.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${smartfare.idempotency.in-flight-wait-ms:10000}") long inFlightWaitMs,
+                              @Value("${smartfare.idempotency.persistent:false}") boolean persistent) {
+        this.responses = new BoundedCache<>(maxEntries, TimeUnit.MINUTES.toMillis(ttlMinutes));
+        this.ttlMinutes = ttlMinutes;
+        this.inFlightWaitMs = inFlightWaitMs;
+        this.persistent = persistent;
+    }
+
+    // Runs the action once per (scope, key). Requests without a key run as before.
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters"));
+        }
+        String storeKey = scope + ":" + key;
+        String requestHash = hash(request);
+
+        StoredResponse stored = responses.get(storeKey);
+        if (stored != null) {
+            replayed.increment();
+            return replay(stored, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> running = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = inFlight.putIfAbsent(storeKey, running);
+        if (existing != null) {
+            return awaitInFlight(existing, requestHash);
+        }
+
+        try {
+            // the previous holder may have finished between the lookup and putIfAbsent
+            stored = responses.get(storeKey);
+            if (stored == null && persistent) {
+                stored = load(storeKey);
+            }
+            if (stored != null) {
+                running.complete(stored);
+                replayed.increment();
+                return replay(stored, requestHash);
+            }
+
+            ResponseEntity<?> response = action.get();
+            executed.increment();
+            stored = store(storeKey, requestHash, response);
+            running.complete(stored);
+            return stored != null ? toResponse(stored, false) : response;
+        } catch (RuntimeException e) {
+            running.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(storeKey, running);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60, initialDelay = 60, timeUnit = TimeUnit.MINUTES)
+    @Transactional
+    public void purgeExpired() {
+        if (persistent) {
+            int purged = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusMinutes(ttlMinutes));
+            if (purged > 0) {
+                System.out.println("🧹 Purged " + purged + " expired idempotency keys");
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("persistent", persistent);
+        stats.put("ttlMinutes", ttlMinutes);
+        stats.put("inFlight", inFlight.size());
+        stats.put("executed", executed.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("replayedFromStore", replayedFromStore.sum());
+        stats.put("waitedForInFlight", waitedForInFlight.sum());
+        stats.put("stillInFlight", stillInFlight.sum());
+        stats.put("keyReused", keyReused.sum());
+        stats.put("notStored", notStored.sum());
+        stats.put("cache", responses.getStats());
+        return stats;
+    }
+
+    private ResponseEntity<?> awaitInFlight(CompletableFuture<StoredResponse> running, String requestHash) {
+        waitedForInFlight.increment();
+        try {
+            StoredResponse stored = running.get(inFlightWaitMs, TimeUnit.MILLISECONDS);
+            if (stored != null) {
+                replayed.increment();
+                return replay(stored, requestHash);
+            }
+            // the first request's outcome was not one to repeat (rejected, failed); try again
+            return retryLater("The original request with this " + HEADER + " did not complete, please retry");
+        } catch (TimeoutException e) {
+            stillInFlight.increment();
+            return retryLater("A request with this " + HEADER + " is still in progress");
+        } catch (ExecutionException e) {
+            return retryLater("The original request with this " + HEADER + " did not complete, please retry");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return retryLater("A request with this " + HEADER + " is still in progress");
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            keyReused.increment();
+            return ResponseEntity.unprocessableEntity()
+                .body(Map.of("error", HEADER + " was already used for a different request"));
+        }
+        return toResponse(stored, true);
+    }
+
+    // Only successes are kept. The booking endpoints report transient failures
+    // (lock conflicts, a journal that is not ready) as 400 or 429 too, and a retry
+    // of those should run again.
+    private StoredResponse store(String storeKey, String requestHash, ResponseEntity<?> response) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            notStored.increment();
+            return null;
+        }
+        int status = response.getStatusCode().value();
+        String body;
+        try {
+            body = response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null;
+        } catch (JsonProcessingException e) {
+            System.err.println("Could not store response for " + storeKey + ": " + e.getMessage());
+            notStored.increment();
+            return null;
+        }
+
+        StoredResponse stored = new StoredResponse(requestHash, status, body);
+        responses.put(storeKey, stored);
+        if (persistent) {
+            try {
+                idempotencyRecordRepository.save(new IdempotencyRecord(storeKey, requestHash, status, body));
+            } catch (RuntimeException e) {
+                // still deduplicated in memory
+                System.err.println("Could not persist idempotency key " + storeKey + ": " + e.getMessage());
+            }
+        }
+        return stored;
+    }
+
+    private StoredResponse load(String storeKey) {
+        Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(storeKey);
+        if (record.isEmpty() || record.get().getCreatedAt().isBefore(LocalDateTime.now().minusMinutes(ttlMinutes))) {
+            return null;
+        }
+        StoredResponse stored = new StoredResponse(record.get().getRequestHash(),
+            record.get().getStatusCode(), record.get().getResponseBody());
+        responses.put(storeKey, stored);
+        replayedFromStore.increment();
+        return stored;
+    }
+
+    // The original request is answered with the stored JSON as well, so it and
+    // every replay carry the same bytes
+    private static ResponseEntity<?> toResponse(StoredResponse stored, boolean replay) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status());
+        if (replay) {
+            builder.header(REPLAYED_HEADER, "true");
+        }
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private static ResponseEntity<?> retryLater(String message) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of("error", message));
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+}
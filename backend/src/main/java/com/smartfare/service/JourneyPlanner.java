@@ -0,0 +1,111 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.Journey;
+import com.smartfare.dto.JourneyLeg;
+import com.smartfare.dto.ScheduleSummary;
+import com.smartfare.util.ConnectionTimetable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+// Plans journeys with transfers when there is no direct bus, running the
+// Connection Scan Algorithm over the date's timetable snapshot. Seat availability
+// is read live once per query - from the seat inventory, and one seat-count query
+// for schedules it has not loaded - so bookings do not touch the timetable.
+@Service
+public class JourneyPlanner {
+
+    public static final String EARLIEST_ARRIVAL = "EARLIEST_ARRIVAL";
+    public static final String CHEAPEST = "CHEAPEST";
+
+    @Autowired
+    private TimetableService timetableService;
+
+    @Autowired
+    private FarePricingService farePricingService;
+
+    private final int transferMinutes;
+    private final int maxLegs;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+
+    public JourneyPlanner(@Value("${smartfare.journeys.min-transfer-minutes:10}") int transferMinutes,
+                          @Value("${smartfare.journeys.max-legs:3}") int maxLegs) {
+        this.transferMinutes = transferMinutes;
+        this.maxLegs = maxLegs;
+    }
+
+    // Earliest-arrival and cheapest journeys leaving after departAfter on the given
+    // date; one entry when both criteria pick the same journey, none when unreachable
+    public List<Journey> plan(Long fromLocationId, Long toLocationId, LocalDate travelDate, LocalTime departAfter) {
+        TimetableSnapshot day = timetableService.getSnapshot(travelDate);
+        long start = System.nanoTime();
+
+        int after = departAfter.getHour() * 60 + departAfter.getMinute();
+        int[] seats = timetableService.liveSeats(day);
+        IntPredicate bookable = connection -> seats[day.connectionDeparture(connection)] > 0;
+        ConnectionTimetable timetable = day.connections();
+        int[] fastest = timetable.earliestArrival(fromLocationId, toLocationId, after, transferMinutes, maxLegs, bookable);
+        int[] cheapest = timetable.cheapest(fromLocationId, toLocationId, after, transferMinutes, maxLegs, bookable);
+
+        List<Journey> journeys = new ArrayList<>(2);
+        if (fastest.length > 0) {
+            journeys.add(toJourney(day, seats, fastest, Arrays.equals(fastest, cheapest)
+                ? List.of(EARLIEST_ARRIVAL, CHEAPEST) : List.of(EARLIEST_ARRIVAL)));
+        }
+        if (cheapest.length > 0 && !Arrays.equals(fastest, cheapest)) {
+            journeys.add(toJourney(day, seats, cheapest, List.of(CHEAPEST)));
+        }
+
+        queries.increment();
+        queryNanos.add(System.nanoTime() - start);
+        return journeys;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long count = queries.sum();
+        stats.put("queries", count);
+        stats.put("avgQueryMicros", count == 0 ? 0 : queryNanos.sum() / count / 1000);
+        stats.put("minTransferMinutes", transferMinutes);
+        stats.put("maxLegs", maxLegs);
+        return stats;
+    }
+
+    private Journey toJourney(TimetableSnapshot day, int[] seatsLeft, int[] connections, List<String> criteria) {
+        List<JourneyLeg> legs = new ArrayList<>(connections.length);
+        BigDecimal totalFare = BigDecimal.ZERO;
+        for (int connection : connections) {
+            ScheduleSummary schedule = day.connectionSummary(connection);
+            int seats = seatsLeft[day.connectionDeparture(connection)];
+            BigDecimal fare = farePricingService.quote(schedule, seats).fare();
+            legs.add(new JourneyLeg(schedule.id(),
+                schedule.route().fromLocation().id(), schedule.route().fromLocation().name(),
+                schedule.route().toLocation().id(), schedule.route().toLocation().name(),
+                schedule.departureTime(), schedule.arrivalTime(), fare, seats,
+                schedule.bus().busNumber(), schedule.bus().operatorName()));
+            totalFare = totalFare.add(fare);
+        }
+        ConnectionTimetable timetable = day.connections();
+        int first = connections[0];
+        int last = connections[connections.length - 1];
+        return new Journey(criteria,
+            day.connectionSummary(first).departureTime(),
+            day.connectionSummary(last).arrivalTime(),
+            timetable.arrivalMinute(last) - timetable.departureMinute(first),
+            connections.length - 1,
+            totalFare,
+            legs);
+    }
+}
@@ -0,0 +1,33 @@
+package com.smartfare.service;
+
+import com.smartfare.model.Location;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// JPA entity listener on Location that keeps the in-memory location indexes in step
+// with the table. Hibernate creates it through Spring, so it can be autowired; the
+// services are looked up lazily because the listener is created with the EntityManagerFactory.
+public class LocationChangeListener {
+
+    @Autowired
+    private ObjectProvider<LocationSearchService> locationSearchService;
+
+    @Autowired
+    private ObjectProvider<NearbyLocationService> nearbyLocationService;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Location location) {
+        locationSearchService.ifAvailable(service -> service.onLocationSaved(location));
+        nearbyLocationService.ifAvailable(service -> service.onLocationSaved(location));
+    }
+
+    @PostRemove
+    public void onRemoved(Location location) {
+        locationSearchService.ifAvailable(service -> service.onLocationRemoved(location.getId()));
+        nearbyLocationService.ifAvailable(service -> service.onLocationRemoved(location.getId()));
+    }
+}
@@ -0,0 +1,299 @@
+package com.smartfare.service;
+
+import com.smartfare.model.Location;
+import com.smartfare.repository.LocationRepository;
+import com.smartfare.util.TokenTrie;
+import com.smartfare.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+// In-memory autocomplete over location names and cities. Built from the
+// locations table once the application is ready and kept current by
+// LocationChangeListener, so searches never reach the database.
+@Service
+public class LocationSearchService {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_POSTINGS_PER_TOKEN = 2000;
+    private static final int MAX_DIRECT_CHECKS = 256;
+
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_CITY = 1;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TokenTrie trie = new TokenTrie();
+    private Map<Long, Location> locations = new HashMap<>();
+    private volatile boolean ready;
+
+    private final LongAdder searches = new LongAdder();
+    private volatile long lastBuildMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        rebuild(locationRepository.findAll());
+    }
+
+    void rebuild(Iterable<Location> source) {
+        long start = System.currentTimeMillis();
+        TokenTrie newTrie = new TokenTrie();
+        Map<Long, Location> newLocations = new HashMap<>();
+        for (Location location : source) {
+            Location copy = copyOf(location);
+            newLocations.put(copy.getId(), copy);
+            index(newTrie, copy);
+        }
+
+        lock.writeLock().lock();
+        try {
+            trie = newTrie;
+            locations = newLocations;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastBuildMillis = System.currentTimeMillis() - start;
+        System.out.println("🔎 Location search index built with " + newLocations.size()
+                + " locations in " + lastBuildMillis + " ms");
+    }
+
+    public List<Location> search(String term) {
+        return search(term, DEFAULT_LIMIT);
+    }
+
+    public List<Location> search(String term, int limit) {
+        if (!ready) {
+            return locationRepository.findByNameOrCityContaining(term);
+        }
+        searches.increment();
+        limit = Math.max(limit, 1);
+
+        List<String> queryTokens = tokenize(term);
+        lock.readLock().lock();
+        try {
+            if (queryTokens.isEmpty()) {
+                List<Location> all = new ArrayList<>(locations.values());
+                all.sort(Comparator.comparing(Location::getName));
+                return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+            }
+
+            // Every query token has to match some name or city token of the location.
+            // The longest token is looked up in the trie; the rest are checked directly
+            // against its matches unless there are too many of them.
+            queryTokens.sort(Comparator.comparingInt(String::length).reversed());
+            int budget = queryTokens.size() == 1 ? Math.max(limit * 8, 64) : MAX_POSTINGS_PER_TOKEN;
+            Map<Long, Integer> totals = null;
+            for (String queryToken : queryTokens) {
+                Map<Long, Integer> scores = new HashMap<>();
+                if (totals != null && totals.size() <= MAX_DIRECT_CHECKS) {
+                    for (Long id : totals.keySet()) {
+                        int score = bestScore(locations.get(id), queryToken);
+                        if (score > 0) {
+                            scores.put(id, score);
+                        }
+                    }
+                } else {
+                    TokenTrie.Visitor visitor = (posting, edits, remaining) ->
+                        scores.merge(locationId(posting), score(posting, edits, remaining), Math::max);
+                    // typo tolerance only kicks in when the plain prefix finds too little
+                    trie.search(queryToken, 0, budget, visitor);
+                    if (scores.size() < limit && maxEdits(queryToken) > 0) {
+                        trie.search(queryToken, maxEdits(queryToken), budget, visitor);
+                    }
+                }
+
+                if (totals == null) {
+                    totals = scores;
+                } else {
+                    Map<Long, Integer> both = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : totals.entrySet()) {
+                        Integer score = scores.get(entry.getKey());
+                        if (score != null) {
+                            both.put(entry.getKey(), entry.getValue() + score);
+                        }
+                    }
+                    totals = both;
+                }
+                if (totals.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            // Keep only the best `limit` matches: highest score, then shortest name
+            Map<Long, Integer> ranking = totals;
+            Comparator<Location> order = Comparator.<Location>comparingInt(l -> -ranking.get(l.getId()))
+                .thenComparingInt(l -> l.getName().length())
+                .thenComparing(Location::getName);
+            PriorityQueue<Location> best = new PriorityQueue<>(limit + 1, order.reversed());
+            for (Long id : ranking.keySet()) {
+                best.add(locations.get(id));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Location> matches = new ArrayList<>(best);
+            matches.sort(order);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Called by LocationChangeListener; applied once the surrounding transaction commits
+    public void onLocationSaved(Location location) {
+        Location copy = copyOf(location);
+        TransactionHooks.afterCommit(() -> apply(copy.getId(), copy));
+    }
+
+    public void onLocationRemoved(Long locationId) {
+        TransactionHooks.afterCommit(() -> apply(locationId, null));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("ready", ready);
+            stats.put("locations", locations.size());
+            stats.put("trieNodes", trie.nodeCount());
+            stats.put("postings", trie.postingCount());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("searches", searches.sum());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        return stats;
+    }
+
+    // Lower-cased runs of letters and digits: "Koyambedu Bus-Terminal" -> koyambedu, bus, terminal
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private void apply(Long id, Location location) {
+        if (id == null || !ready) {
+            // the startup build reads the table and will pick this up
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Location previous = location != null ? locations.put(id, location) : locations.remove(id);
+            if (previous != null) {
+                unindex(trie, previous);
+            }
+            if (location != null) {
+                index(trie, location);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void index(TokenTrie trie, Location location) {
+        forEachPosting(location, (token, posting) -> trie.add(token, posting));
+    }
+
+    private static void unindex(TokenTrie trie, Location location) {
+        forEachPosting(location, (token, posting) -> trie.remove(token, posting));
+    }
+
+    private static void forEachPosting(Location location, BiConsumer<String, Long> action) {
+        List<String> nameTokens = tokenize(location.getName());
+        for (int i = 0; i < nameTokens.size(); i++) {
+            action.accept(nameTokens.get(i), posting(location.getId(), FIELD_NAME, i));
+        }
+        List<String> cityTokens = tokenize(location.getCity());
+        for (int i = 0; i < cityTokens.size(); i++) {
+            action.accept(cityTokens.get(i), posting(location.getId(), FIELD_CITY, i));
+        }
+    }
+
+    // Posting layout: location id, then one bit for the field and seven for the token position
+    private static long posting(long locationId, int field, int position) {
+        return locationId << 8 | (long) field << 7 | Math.min(position, 127);
+    }
+
+    private static long locationId(long posting) {
+        return posting >>> 8;
+    }
+
+    // No typos allowed in very short tokens, one from four characters, two from eight
+    private static int maxEdits(String token) {
+        if (token.length() >= 8) {
+            return 2;
+        }
+        return token.length() >= 4 ? 1 : 0;
+    }
+
+    // Same scoring as a trie match, for one location and one query token; 0 if nothing matches
+    private static int bestScore(Location location, String queryToken) {
+        int maxEdits = maxEdits(queryToken);
+        int[] best = {0};
+        forEachPosting(location, (token, posting) -> {
+            int[] match = TokenTrie.prefixDistance(queryToken, token, maxEdits);
+            if (match != null) {
+                best[0] = Math.max(best[0], score(posting, match[0], match[1]));
+            }
+        });
+        return best[0];
+    }
+
+    private static int score(long posting, int edits, int remaining) {
+        int score;
+        if (remaining == 0) {
+            score = edits == 0 ? 100 : 70 - 10 * edits;
+        } else {
+            score = (edits == 0 ? 80 : 50 - 10 * edits) - Math.min(remaining, 10);
+        }
+        if (((posting >>> 7) & 1) == FIELD_NAME) {
+            score += 10;
+        }
+        if ((posting & 127) == 0) {
+            score += 5;
+        }
+        return score;
+    }
+
+    private static Location copyOf(Location location) {
+        Location copy = new Location(location.getName(), location.getCity(), location.getState());
+        copy.setId(location.getId());
+        copy.setLatitude(location.getLatitude());
+        copy.setLongitude(location.getLongitude());
+        copy.setCreatedAt(location.getCreatedAt());
+        return copy;
+    }
+}
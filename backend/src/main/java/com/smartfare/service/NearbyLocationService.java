@@ -0,0 +1,153 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.NearbyLocation;
+import com.smartfare.model.Location;
+import com.smartfare.repository.LocationRepository;
+import com.smartfare.util.GeoGrid;
+import com.smartfare.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// "Stops near me": k-nearest locations from an in-memory grid over their
+// coordinates. Built once the application is ready and updated in place by
+// LocationChangeListener. Locations without coordinates are left out.
+@Service
+public class NearbyLocationService {
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private final double cellDegrees;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private GeoGrid grid;
+    private Map<Long, NearbyLocation> locations = new HashMap<>();
+    private volatile boolean ready;
+
+    private final LongAdder lookups = new LongAdder();
+    private volatile long lastBuildMillis;
+
+    public NearbyLocationService(@Value("${smartfare.locations.grid-cell-degrees:0.05}") double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.grid = new GeoGrid(cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        rebuild(locationRepository.findAll());
+    }
+
+    void rebuild(Iterable<Location> source) {
+        long start = System.currentTimeMillis();
+        GeoGrid newGrid = new GeoGrid(cellDegrees);
+        Map<Long, NearbyLocation> newLocations = new HashMap<>();
+        for (Location location : source) {
+            NearbyLocation entry = entryOf(location);
+            if (entry != null) {
+                newLocations.put(entry.id(), entry);
+                newGrid.put(entry.id(), entry.latitude(), entry.longitude());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            grid = newGrid;
+            locations = newLocations;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastBuildMillis = System.currentTimeMillis() - start;
+        System.out.println("📍 Nearby-stop index built with " + newLocations.size()
+                + " locations in " + lastBuildMillis + " ms");
+    }
+
+    // Up to k locations closest to (latitude, longitude), nearest first;
+    // radiusKm <= 0 means no distance limit
+    public List<NearbyLocation> findNearest(double latitude, double longitude, int k, double radiusKm) {
+        if (!ready) {
+            rebuild();
+        }
+        lookups.increment();
+        lock.readLock().lock();
+        try {
+            List<GeoGrid.Neighbor> neighbors = grid.nearest(latitude, longitude, k, radiusKm);
+            List<NearbyLocation> result = new ArrayList<>(neighbors.size());
+            for (GeoGrid.Neighbor neighbor : neighbors) {
+                NearbyLocation entry = locations.get(neighbor.id());
+                result.add(new NearbyLocation(entry.id(), entry.name(), entry.city(), entry.state(),
+                    entry.latitude(), entry.longitude(), Math.round(neighbor.distanceKm() * 1000) / 1000.0));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Called by LocationChangeListener; applied once the surrounding transaction commits
+    public void onLocationSaved(Location location) {
+        Long id = location.getId();
+        NearbyLocation entry = entryOf(location);
+        TransactionHooks.afterCommit(() -> apply(id, entry));
+    }
+
+    public void onLocationRemoved(Long locationId) {
+        TransactionHooks.afterCommit(() -> apply(locationId, null));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("ready", ready);
+            stats.put("locations", grid.size());
+            stats.put("cells", grid.cellCount());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("cellDegrees", cellDegrees);
+        stats.put("lookups", lookups.sum());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        return stats;
+    }
+
+    private void apply(Long id, NearbyLocation entry) {
+        if (id == null || !ready) {
+            // the startup build reads the table and will pick this up
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (entry != null) {
+                locations.put(id, entry);
+                grid.put(id, entry.latitude(), entry.longitude());
+            } else {
+                // removed, or no longer has coordinates
+                locations.remove(id);
+                grid.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static NearbyLocation entryOf(Location location) {
+        if (location.getId() == null || location.getLatitude() == null || location.getLongitude() == null) {
+            return null;
+        }
+        return new NearbyLocation(location.getId(), location.getName(), location.getCity(), location.getState(),
+            location.getLatitude(), location.getLongitude(), 0);
+    }
+}
@@ -1,36 +1,94 @@
 package com.smartfare.service;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.smartfare.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class QRCodeService {
-    
+
+    private static final int QR_SIZE = 300;
+
+    // QRCodeWriter keeps no state between calls, so one instance serves all threads
+    private final QRCodeWriter qrCodeWriter = new QRCodeWriter();
+
+    private final Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+
+    private final ThreadLocal<ByteArrayOutputStream> outputBuffers =
+        ThreadLocal.withInitial(() -> new ByteArrayOutputStream(4096));
+
+    // Rendered PNGs keyed by booking reference plus a hash of the encoded data;
+    // the data never changes once a booking exists
+    private final BoundedCache<String, byte[]> renderedCodes;
+
+    public QRCodeService(@Value("${smartfare.qr.cache-size:5000}") int cacheSize) {
+        this.renderedCodes = new BoundedCache<>(cacheSize, 0);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        hints.put(EncodeHintType.MARGIN, 2);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+    }
+
     public String generateQRCodeBase64(String data) {
+        return Base64.getEncoder().encodeToString(renderPng(data));
+    }
+
+    public String generateQRCodeDataURL(String data) {
+        String base64QR = generateQRCodeBase64(data);
+        return "data:image/png;base64," + base64QR;
+    }
+
+    public String generateQRCodeDataURL(String bookingReference, String data) {
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(getQRCodePng(bookingReference, data));
+    }
+
+    public byte[] getQRCodePng(String bookingReference, String data) {
+        String key = cacheKey(bookingReference, data);
+        byte[] png = renderedCodes.get(key);
+        if (png == null) {
+            png = renderPng(data);
+            renderedCodes.put(key, png);
+        }
+        return png;
+    }
+
+    // Drops every rendered code of these bookings, e.g. once they are cancelled
+    public void evict(Set<String> bookingReferences) {
+        renderedCodes.invalidateIf(key -> bookingReferences.contains(key.substring(0, key.lastIndexOf(':'))));
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return renderedCodes.getStats();
+    }
+
+    private byte[] renderPng(String data) {
         try {
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(data, BarcodeFormat.QR_CODE, 300, 300);
-            
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            BitMatrix bitMatrix = qrCodeWriter.encode(data, BarcodeFormat.QR_CODE, QR_SIZE, QR_SIZE, hints);
+
+            ByteArrayOutputStream outputStream = outputBuffers.get();
+            outputStream.reset();
             MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-            
-            byte[] qrCodeBytes = outputStream.toByteArray();
-            return Base64.getEncoder().encodeToString(qrCodeBytes);
-            
+
+            return outputStream.toByteArray();
+
         } catch (WriterException | IOException e) {
             throw new RuntimeException("Error generating QR code", e);
         }
     }
-    
-    public String generateQRCodeDataURL(String data) {
-        String base64QR = generateQRCodeBase64(data);
-        return "data:image/png;base64," + base64QR;
+
+    private static String cacheKey(String bookingReference, String data) {
+        return bookingReference + ':' + Integer.toHexString(data.hashCode());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.smartfare.service;
+
+import com.smartfare.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Renders ticket QR codes in the background right after a booking commits, so
+// opening a ticket is a cache lookup. The queue is bounded: when it is full the
+// booking is not held up and the code is rendered on first open instead. With
+// spring.threads.virtual.enabled the workers are virtual threads; the pool size
+// still caps how many render at once.
+@Component
+public class QRPreRenderer {
+
+    @Autowired
+    private QRCodeService qrCodeService;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rendered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final AtomicLong maxRenderNanos = new AtomicLong();
+
+    public QRPreRenderer(@Value("${smartfare.qr.prerender.threads:2}") int threads,
+                         @Value("${smartfare.qr.prerender.queue-capacity:1000}") int queueCapacity,
+                         Environment environment) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory(Threading.VIRTUAL.isActive(environment)),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static ThreadFactory threadFactory(boolean virtual) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor("qr-prerender-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "qr-prerender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void submit(String bookingReference, String qrData) {
+        TransactionHooks.afterCommit(() -> enqueue(bookingReference, qrData));
+    }
+
+    private void enqueue(String bookingReference, String qrData) {
+        try {
+            executor.execute(() -> render(bookingReference, qrData));
+            submitted.increment();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+        }
+    }
+
+    private void render(String bookingReference, String qrData) {
+        long start = System.nanoTime();
+        try {
+            qrCodeService.getQRCodePng(bookingReference, qrData);
+            long elapsed = System.nanoTime() - start;
+            rendered.increment();
+            renderNanos.add(elapsed);
+            maxRenderNanos.accumulateAndGet(elapsed, Math::max);
+        } catch (RuntimeException e) {
+            failed.increment();
+            System.err.println("QR pre-render failed for " + bookingReference + ": " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long renderedCount = rendered.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("submitted", submitted.sum());
+        stats.put("rendered", renderedCount);
+        stats.put("rejected", rejected.sum());
+        stats.put("failed", failed.sum());
+        stats.put("avgRenderMillis", renderedCount == 0 ? 0.0 : renderNanos.sum() / 1_000_000.0 / renderedCount);
+        stats.put("maxRenderMillis", maxRenderNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
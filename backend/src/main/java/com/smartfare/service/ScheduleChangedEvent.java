@@ -0,0 +1,24 @@
+package com.smartfare.service;
+
+import com.smartfare.model.BusSchedule;
+import java.time.LocalDate;
+
+// Published whenever a schedule's bookable state changes. A null route means
+// every route running on that date may have changed.
+public record ScheduleChangedEvent(Long fromLocationId, Long toLocationId, LocalDate scheduleDate) {
+
+    public static ScheduleChangedEvent of(BusSchedule schedule) {
+        return new ScheduleChangedEvent(
+            schedule.getRoute().getFromLocation().getId(),
+            schedule.getRoute().getToLocation().getId(),
+            schedule.getScheduleDate());
+    }
+
+    public static ScheduleChangedEvent forDate(LocalDate scheduleDate) {
+        return new ScheduleChangedEvent(null, null, scheduleDate);
+    }
+
+    public boolean affectsAllRoutes() {
+        return fromLocationId == null || toLocationId == null;
+    }
+}
@@ -0,0 +1,187 @@
+package com.smartfare.service;
+
+import com.smartfare.model.BusSchedule;
+import com.smartfare.dto.ScheduleSlot;
+import com.smartfare.repository.BusScheduleRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Expands recurring schedule templates into bus_schedules rows for a date range.
+// Works through the range a few days at a time: each chunk reads the slots that
+// already exist, persists the missing ones and commits, so a re-run (or a run
+// picking up after a failure) only adds what is not there yet. Sequence ids let
+// Hibernate send the inserts as JDBC batches (hibernate.jdbc.batch_size); the
+// persistence context is flushed and cleared every batch-size rows.
+@Service
+public class ScheduleGenerationService {
+
+    public record GenerationResult(LocalDate from, LocalDate to, int inserted, int skipped, long millis) {}
+
+    @Autowired
+    private BusScheduleRepository busScheduleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Progress of the current (or last) run
+    private volatile LocalDate runFrom;
+    private volatile LocalDate runTo;
+    private volatile long datesDone;
+    private volatile long datesTotal;
+    private volatile int inserted;
+    private volatile int skipped;
+    private volatile GenerationResult lastResult;
+
+    public ScheduleGenerationService(@Value("${smartfare.schedules.generation.batch-size:1000}") int batchSize) {
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    // Generates schedules for every date from `from` to `to`, both inclusive
+    public GenerationResult generate(List<ScheduleTemplate> templates, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Schedule generation is already running");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            runFrom = from;
+            runTo = to;
+            datesDone = 0;
+            datesTotal = ChronoUnit.DAYS.between(from, to) + 1;
+            inserted = 0;
+            skipped = 0;
+            System.out.println("🗓️ Generating schedules from " + templates.size() + " templates for "
+                    + from + " to " + to);
+
+            // enough days per chunk to fill roughly one batch
+            int daysPerChunk = Math.max(1, batchSize / Math.max(templates.size(), 1));
+            int reportedPercent = 0;
+            for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.plusDays(daysPerChunk)) {
+                LocalDate chunkEnd = chunkStart.plusDays(daysPerChunk - 1);
+                if (chunkEnd.isAfter(to)) {
+                    chunkEnd = to;
+                }
+                generateChunk(templates, chunkStart, chunkEnd);
+                datesDone += ChronoUnit.DAYS.between(chunkStart, chunkEnd) + 1;
+
+                int percent = (int) (datesDone * 100 / datesTotal);
+                if (percent / 10 > reportedPercent / 10 && percent < 100) {
+                    reportedPercent = percent;
+                    System.out.println("🗓️ Schedule generation " + percent + "% (through " + chunkEnd + ", "
+                            + inserted + " inserted, " + skipped + " already present)");
+                }
+            }
+
+            GenerationResult result = new GenerationResult(from, to, inserted, skipped,
+                System.currentTimeMillis() - start);
+            lastResult = result;
+            System.out.println("✅ Generated " + result.inserted() + " schedules for " + from + " to " + to
+                    + " (" + result.skipped() + " already present) in " + result.millis() + " ms");
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("running", running.get());
+        stats.put("from", runFrom);
+        stats.put("to", runTo);
+        stats.put("datesDone", datesDone);
+        stats.put("datesTotal", datesTotal);
+        stats.put("inserted", inserted);
+        stats.put("skipped", skipped);
+        stats.put("batchSize", batchSize);
+        stats.put("lastResult", lastResult);
+        return stats;
+    }
+
+    private void generateChunk(List<ScheduleTemplate> templates, LocalDate chunkStart, LocalDate chunkEnd) {
+        List<LocalDate> changedDates = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<ScheduleSlot> existing = new HashSet<>(busScheduleRepository.findSlots(chunkStart, chunkEnd));
+            List<BusSchedule> batch = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+
+            for (LocalDate date = chunkStart; !date.isAfter(chunkEnd); date = date.plusDays(1)) {
+                boolean changed = false;
+                for (ScheduleTemplate template : templates) {
+                    if (!template.runsOn(date)) {
+                        continue;
+                    }
+                    ScheduleSlot slot = new ScheduleSlot(
+                        template.bus().getId(), template.route().getId(), date, template.departureTime());
+                    if (existing.contains(slot)) {
+                        skipped++;
+                        continue;
+                    }
+                    batch.add(toSchedule(template, date, now));
+                    changed = true;
+                    // a single day of a large fleet can be more than one batch
+                    if (batch.size() >= batchSize) {
+                        flush(batch);
+                    }
+                }
+                if (changed) {
+                    changedDates.add(date);
+                }
+            }
+            flush(batch);
+        });
+
+        // after the commit, so timetable snapshots rebuilt for these dates see the new rows
+        for (LocalDate date : changedDates) {
+            eventPublisher.publishEvent(ScheduleChangedEvent.forDate(date));
+        }
+    }
+
+    private void flush(List<BusSchedule> batch) {
+        if (!batch.isEmpty()) {
+            busScheduleRepository.saveAll(batch);
+            entityManager.flush();
+            entityManager.clear();
+            inserted += batch.size();
+            batch.clear();
+        }
+    }
+
+    private static BusSchedule toSchedule(ScheduleTemplate template, LocalDate date, LocalDateTime now) {
+        BusSchedule schedule = new BusSchedule();
+        schedule.setBus(template.bus());
+        schedule.setRoute(template.route());
+        schedule.setDepartureTime(template.departureTime());
+        schedule.setArrivalTime(template.arrivalTime());
+        schedule.setFare(template.fare());
+        schedule.setAvailableSeats(template.availableSeats());
+        schedule.setScheduleDate(date);
+        schedule.setStatus(BusSchedule.ScheduleStatus.SCHEDULED);
+        schedule.setCreatedAt(now);
+        return schedule;
+    }
+}
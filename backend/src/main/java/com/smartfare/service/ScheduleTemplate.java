@@ -0,0 +1,32 @@
+package com.smartfare.service;
+
+import com.smartfare.model.Bus;
+import com.smartfare.model.Route;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+// A recurring departure: this bus on this route at this time, on the given days
+// of the week. ScheduleGenerationService expands templates into BusSchedule rows.
+public record ScheduleTemplate(
+        Bus bus,
+        Route route,
+        LocalTime departureTime,
+        LocalTime arrivalTime,
+        BigDecimal fare,
+        int availableSeats,
+        Set<DayOfWeek> daysOfWeek) {
+
+    public static ScheduleTemplate daily(Bus bus, Route route, LocalTime departureTime, LocalTime arrivalTime,
+                                         BigDecimal fare, int availableSeats) {
+        return new ScheduleTemplate(bus, route, departureTime, arrivalTime, fare, availableSeats,
+            EnumSet.allOf(DayOfWeek.class));
+    }
+
+    public boolean runsOn(LocalDate date) {
+        return daysOfWeek.contains(date.getDayOfWeek());
+    }
+}
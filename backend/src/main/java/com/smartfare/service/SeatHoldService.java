@@ -0,0 +1,279 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.SeatHold;
+import com.smartfare.model.Booking;
+import com.smartfare.model.BusSchedule;
+import com.smartfare.repository.BookingRepository;
+import com.smartfare.repository.BusScheduleRepository;
+import com.smartfare.util.TimingWheel;
+import com.smartfare.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Payment window for new bookings. A booking holds its seat while its payment is
+// PENDING; if it is not paid within `ttl-minutes` of booking it is CANCELLED and
+// the seat goes back to the schedule's count and the seat inventory.
+//
+// Deadlines sit in a TimingWheel, ticked by one thread every `tick-ms`, so adding
+// or cancelling a hold is O(1) and nothing polls the database. Holds are only in
+// memory: on startup every unpaid booking is read back and gets its remaining time.
+// Expiry and payment are both conditional updates on the booking row, so whichever
+// commits first wins.
+@Service
+public class SeatHoldService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BusScheduleRepository busScheduleRepository;
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BookingJournalService bookingJournalService;
+
+    @Autowired
+    private QRCodeService qrCodeService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final int batchSize;
+
+    // guarded by itself
+    private final TimingWheel<SeatHold> wheel;
+    private final ConcurrentHashMap<String, TimingWheel.Timer<SeatHold>> timers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder paid = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder alreadySettled = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile int restored;
+    private volatile long lastExpiryMillis;
+
+    public SeatHoldService(@Value("${smartfare.booking.hold.enabled:true}") boolean enabled,
+                           @Value("${smartfare.booking.hold.ttl-minutes:15}") long ttlMinutes,
+                           @Value("${smartfare.booking.hold.tick-ms:1000}") long tickMillis,
+                           @Value("${smartfare.booking.hold.wheel-size:64}") int wheelSize,
+                           @Value("${smartfare.booking.hold.expiry-batch-size:500}") int batchSize) {
+        if (ttlMinutes < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Hold TTL must be at least 1 minute and expiry batches at least 1");
+        }
+        this.enabled = enabled;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.tickMillis = tickMillis;
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Starts the booking's payment window; inside a transaction, once it commits
+    public void hold(Booking booking) {
+        if (!enabled) {
+            return;
+        }
+        long deadline = booking.getBookingDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + ttlMillis;
+        SeatHold hold = new SeatHold(booking.getBookingReference(), booking.getSchedule().getId(),
+            booking.getSeatNumber(), booking.getBookingDate());
+        TransactionHooks.afterCommit(() -> schedule(hold, deadline));
+    }
+
+    // Payment went through; inside a transaction, once it commits
+    public void release(String bookingReference) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> cancelTimer(bookingReference));
+    }
+
+    // After the booking journal has replayed, so its bookings are in the table
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        List<SeatHold> unpaid = bookingRepository.findUnpaidHolds();
+        for (SeatHold hold : unpaid) {
+            long deadline = hold.bookingDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + ttlMillis;
+            schedule(hold, deadline);
+        }
+        restored = unpaid.size();
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        System.out.println("⏳ Seat holds: " + unpaid.size() + " unpaid bookings restored, payment window "
+            + TimeUnit.MILLISECONDS.toMinutes(ttlMillis) + " min");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ttlMinutes", TimeUnit.MILLISECONDS.toMinutes(ttlMillis));
+        stats.put("activeHolds", timers.size());
+        stats.put("timersScheduled", scheduled.sum());
+        stats.put("paid", paid.sum());
+        stats.put("expired", expired.sum());
+        stats.put("alreadySettled", alreadySettled.sum());
+        stats.put("deferred", deferred.sum());
+        stats.put("failures", failures.sum());
+        stats.put("restoredAtStartup", restored);
+        stats.put("lastExpiryMillis", lastExpiryMillis);
+        synchronized (wheel) {
+            stats.put("wheel", wheel.getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private void schedule(SeatHold hold, long deadline) {
+        synchronized (wheel) {
+            // restored at startup and held by a new booking at the same moment
+            if (timers.containsKey(hold.bookingReference())) {
+                return;
+            }
+            timers.put(hold.bookingReference(), wheel.schedule(hold, deadline));
+        }
+        scheduled.increment();
+    }
+
+    private void cancelTimer(String bookingReference) {
+        synchronized (wheel) {
+            TimingWheel.Timer<SeatHold> timer = timers.remove(bookingReference);
+            if (timer != null && wheel.cancel(timer)) {
+                paid.increment();
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            List<SeatHold> due = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(System.currentTimeMillis(), hold -> {
+                    timers.remove(hold.bookingReference());
+                    due.add(hold);
+                });
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            for (int from = 0; from < due.size(); from += batchSize) {
+                expire(due.subList(from, Math.min(from + batchSize, due.size())));
+            }
+            lastExpiryMillis = System.currentTimeMillis() - start;
+        } catch (RuntimeException e) {
+            // keep ticking; failed batches were put back in expire()
+            System.err.println("Seat hold expiry failed: " + e.getMessage());
+        }
+    }
+
+    private void expire(List<SeatHold> holds) {
+        List<SeatHold> ready = new ArrayList<>(holds.size());
+        for (SeatHold hold : holds) {
+            if (bookingJournalService.findPending(hold.bookingReference()) != null) {
+                // acknowledged but not in the table yet
+                deferred.increment();
+                retryLater(hold);
+            } else {
+                ready.add(hold);
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+
+        List<SeatHold> cancelled;
+        try {
+            cancelled = transactionTemplate.execute(status -> cancelUnpaid(ready));
+        } catch (RuntimeException e) {
+            failures.increment();
+            System.err.println("Could not expire " + ready.size() + " seat holds, will retry: " + e.getMessage());
+            for (SeatHold hold : ready) {
+                retryLater(hold);
+            }
+            return;
+        }
+        alreadySettled.add(ready.size() - cancelled.size());
+        expired.add(cancelled.size());
+
+        Map<Long, Integer> seatsBySchedule = new HashMap<>();
+        Set<String> references = new HashSet<>();
+        for (SeatHold hold : cancelled) {
+            references.add(hold.bookingReference());
+            seatInventoryService.releaseSeat(hold.scheduleId(), hold.seatNumber());
+            seatsBySchedule.merge(hold.scheduleId(), 1, Integer::sum);
+        }
+        for (Long scheduleId : seatsBySchedule.keySet()) {
+            BusSchedule schedule = busService.getBusScheduleById(scheduleId);
+            if (schedule != null) {
+                eventPublisher.publishEvent(ScheduleChangedEvent.of(schedule));
+            }
+        }
+        if (!references.isEmpty()) {
+            qrCodeService.evict(references);
+        }
+    }
+
+    // Cancels the bookings still unpaid and returns their seats to the schedules
+    private List<SeatHold> cancelUnpaid(List<SeatHold> holds) {
+        List<SeatHold> cancelled = new ArrayList<>(holds.size());
+        Map<Long, Integer> seatsBySchedule = new HashMap<>();
+        for (SeatHold hold : holds) {
+            // paid, cancelled or deleted in the meantime: nothing to release
+            if (bookingRepository.cancelUnpaid(hold.bookingReference()) == 1) {
+                cancelled.add(hold);
+                seatsBySchedule.merge(hold.scheduleId(), 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<Long, Integer> seats : seatsBySchedule.entrySet()) {
+            busScheduleRepository.incrementAvailableSeats(seats.getKey(), seats.getValue());
+        }
+        return cancelled;
+    }
+
+    private void retryLater(SeatHold hold) {
+        schedule(hold, System.currentTimeMillis() + Math.max(tickMillis, 1000));
+    }
+}
@@ -0,0 +1,161 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.SeatCount;
+import com.smartfare.model.BusSchedule;
+import com.smartfare.repository.BookingRepository;
+import com.smartfare.repository.BusScheduleRepository;
+import com.smartfare.util.SeatInventory;
+import com.smartfare.util.SeatLayout;
+import com.smartfare.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class SeatInventoryService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BusScheduleRepository busScheduleRepository;
+
+    private final ConcurrentHashMap<Long, SeatInventory> inventories = new ConcurrentHashMap<>();
+
+    public SeatInventory getInventory(BusSchedule schedule) {
+        SeatInventory inventory = inventories.get(schedule.getId());
+        if (inventory != null) {
+            return inventory;
+        }
+        return inventories.computeIfAbsent(schedule.getId(), id -> loadInventory(schedule));
+    }
+
+    public SeatInventory findInventory(Long scheduleId) {
+        return inventories.get(scheduleId);
+    }
+
+    // Claims the seat in memory. When called inside a transaction the claim is
+    // handed back automatically if that transaction rolls back.
+    public void claimSeat(BusSchedule schedule, String seatNumber) {
+        claimSeats(schedule, List.of(seatNumber));
+    }
+
+    // All-or-nothing: if any seat cannot be claimed, the ones already taken by
+    // this call are released before the failure is reported. Returns the
+    // inventory the seats were claimed in, for handing them back to it.
+    public SeatInventory claimSeats(BusSchedule schedule, List<String> seatNumbers) {
+        SeatInventory inventory = getInventory(schedule);
+
+        for (int i = 0; i < seatNumbers.size(); i++) {
+            String seatNumber = seatNumbers.get(i);
+            SeatInventory.ClaimResult result = inventory.claim(inventory.indexOf(seatNumber));
+            if (result != SeatInventory.ClaimResult.CLAIMED) {
+                releaseSeats(inventory, seatNumbers.subList(0, i));
+                throw claimFailure(result, seatNumber);
+            }
+        }
+
+        TransactionHooks.afterRollback(() -> releaseSeats(inventory, seatNumbers));
+        return inventory;
+    }
+
+    public void releaseSeats(SeatInventory inventory, List<String> seatNumbers) {
+        for (String seatNumber : seatNumbers) {
+            inventory.release(inventory.indexOf(seatNumber));
+        }
+    }
+
+    public void releaseSeat(Long scheduleId, String seatNumber) {
+        SeatInventory inventory = inventories.get(scheduleId);
+        if (inventory != null) {
+            inventory.release(inventory.indexOf(seatNumber));
+        }
+    }
+
+    // The stored count was lower than the inventory's. Once the current
+    // transaction is over, bring the inventory's count down to the committed
+    // one; the taken seats stay as they are, so in-flight claims keep theirs.
+    public void resyncAvailable(Long scheduleId) {
+        TransactionHooks.afterCompletion(() -> doResyncAvailable(scheduleId));
+    }
+
+    // Drops the cached state so it is reloaded from the database on next use; only
+    // safe when no booking on the schedule is in flight, e.g. after rows were
+    // changed behind the application's back
+    public void evict(Long scheduleId) {
+        inventories.remove(scheduleId);
+    }
+
+    // Drops the inventories of schedules that ran before the given date, so the
+    // map only holds what can still be booked. Should a late booking arrive for
+    // one of them it is reloaded; the count UPDATE and the confirmed-seat index
+    // still guard the rows.
+    public int dropScheduledBefore(LocalDate date) {
+        if (inventories.isEmpty()) {
+            return 0;
+        }
+        List<Long> departed = busScheduleRepository.findIdsScheduledBefore(List.copyOf(inventories.keySet()), date);
+        for (Long scheduleId : departed) {
+            inventories.remove(scheduleId);
+        }
+        return departed.size();
+    }
+
+    public Map<String, Object> getStats() {
+        int booked = 0;
+        int available = 0;
+        for (SeatInventory inventory : inventories.values()) {
+            booked += inventory.getBookedSeats();
+            available += inventory.getAvailableSeats();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("schedulesLoaded", inventories.size());
+        stats.put("seatsBooked", booked);
+        stats.put("seatsAvailable", available);
+        return stats;
+    }
+
+    private RuntimeException claimFailure(SeatInventory.ClaimResult result, String seatNumber) {
+        switch (result) {
+            case SEAT_TAKEN:
+                return new RuntimeException("Seat already booked: " + seatNumber);
+            case SOLD_OUT:
+                return new RuntimeException("Bus not available or no seats left");
+            default:
+                return new IllegalArgumentException("Invalid seat number: " + seatNumber);
+        }
+    }
+
+    private void doResyncAvailable(Long scheduleId) {
+        SeatInventory inventory = inventories.get(scheduleId);
+        if (inventory == null) {
+            return;
+        }
+        try {
+            for (SeatCount count : busScheduleRepository.findSeatCounts(List.of(scheduleId))) {
+                if (count.availableSeats() != null) {
+                    inventory.limitAvailable(count.availableSeats());
+                }
+            }
+        } catch (RuntimeException e) {
+            // the conditional UPDATE still guards the count; try again on the next conflict
+            System.err.println("Could not resync seats for schedule " + scheduleId + ": " + e.getMessage());
+        }
+    }
+
+    private SeatInventory loadInventory(BusSchedule schedule) {
+        Integer totalSeats = schedule.getBus() != null ? schedule.getBus().getTotalSeats() : null;
+        int capacity = totalSeats != null ? totalSeats : schedule.getAvailableSeats();
+        SeatInventory inventory = new SeatInventory(SeatLayout.singleRow(capacity), schedule.getAvailableSeats());
+
+        List<String> bookedSeats = bookingRepository.findBookedSeatsBySchedule(schedule.getId());
+        for (String seatNumber : bookedSeats) {
+            inventory.markBooked(inventory.indexOf(seatNumber));
+        }
+        return inventory;
+    }
+}
@@ -0,0 +1,196 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.TicketPayload;
+import com.smartfare.model.Booking;
+import com.smartfare.util.Base45;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Compact, signed ticket payload for QR codes:
+//
+//   "SF:" + Base45( version | reference | scheduleId | seat | date | fare | bus | name | signature )
+//
+// Strings are length-prefixed, numbers are unsigned varints (date as epoch day,
+// fare in paise) and the signature is the first 8 bytes of an HMAC-SHA256 over
+// everything before it. Base45 keeps the QR in alphanumeric mode.
+@Component
+public class TicketPayloadCodec {
+
+    public static final String PREFIX = "SF:";
+    public static final int VERSION = 1;
+
+    private static final int SIGNATURE_BYTES = 8;
+    private static final int MAX_FIELD_BYTES = 64;
+    private static final int MAX_NAME_BYTES = 20;
+    private static final int MAX_PAYLOAD_BYTES = 320;
+
+    private final ThreadLocal<Mac> macs;
+
+    // The key comes from SMARTFARE_QR_SIGNING_KEY. Where require-signing-key is set
+    // (the docker profile) startup fails without it; in development a random key
+    // is used, so tickets only verify until the next restart.
+    public TicketPayloadCodec(@Value("${smartfare.qr.signing-key:}") String signingKey,
+                              @Value("${smartfare.qr.require-signing-key:true}") boolean requireSigningKey) {
+        byte[] keyBytes;
+        if (signingKey != null && !signingKey.isBlank()) {
+            keyBytes = signingKey.getBytes(StandardCharsets.UTF_8);
+        } else if (requireSigningKey) {
+            throw new IllegalStateException("smartfare.qr.signing-key is not set; provide SMARTFARE_QR_SIGNING_KEY");
+        } else {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            System.out.println("⚠️ No ticket signing key set, using a random one; tickets will not verify after a restart");
+        }
+        SecretKeySpec key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    public String encode(Booking booking) {
+        byte[] buffer = new byte[MAX_PAYLOAD_BYTES];
+        int position = 0;
+
+        buffer[position++] = (byte) VERSION;
+        position = writeAscii(buffer, position, booking.getBookingReference());
+        position = writeVarLong(buffer, position, booking.getSchedule().getId());
+        position = writeAscii(buffer, position, booking.getSeatNumber());
+        position = writeVarLong(buffer, position, booking.getSchedule().getScheduleDate().toEpochDay());
+        position = writeVarLong(buffer, position, toPaise(booking.getFareAmount()));
+        position = writeAscii(buffer, position, booking.getSchedule().getBus().getBusNumber());
+        position = writeName(buffer, position, booking.getPassenger().getName());
+
+        Mac mac = macs.get();
+        mac.update(buffer, 0, position);
+        byte[] signature = mac.doFinal();
+        System.arraycopy(signature, 0, buffer, position, SIGNATURE_BYTES);
+
+        return PREFIX + Base45.encode(buffer, position + SIGNATURE_BYTES);
+    }
+
+    public TicketPayload decode(String qrData) {
+        if (qrData == null || !qrData.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Not a SmartFare ticket code");
+        }
+        byte[] data = Base45.decode(qrData.substring(PREFIX.length()));
+        if (data.length <= SIGNATURE_BYTES) {
+            throw new IllegalArgumentException("Ticket code is truncated");
+        }
+
+        int signedLength = data.length - SIGNATURE_BYTES;
+        Mac mac = macs.get();
+        mac.update(data, 0, signedLength);
+        byte[] expected = Arrays.copyOf(mac.doFinal(), SIGNATURE_BYTES);
+        byte[] actual = Arrays.copyOfRange(data, signedLength, data.length);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new IllegalArgumentException("Ticket signature does not match");
+        }
+
+        Reader reader = new Reader(data, signedLength);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported ticket version: " + version);
+        }
+        String bookingReference = reader.readString();
+        long scheduleId = reader.readVarLong();
+        String seatNumber = reader.readString();
+        LocalDate scheduleDate = LocalDate.ofEpochDay(reader.readVarLong());
+        BigDecimal fare = BigDecimal.valueOf(reader.readVarLong(), 2);
+        String busNumber = reader.readString();
+        String passengerName = reader.readString();
+
+        return new TicketPayload(version, bookingReference, scheduleId, seatNumber,
+            scheduleDate, fare, busNumber, passengerName);
+    }
+
+    private static long toPaise(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static int writeAscii(byte[] buffer, int position, String value) {
+        int length = Math.min(value.length(), MAX_FIELD_BYTES);
+        buffer[position++] = (byte) length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            buffer[position++] = (byte) (c < 128 ? c : '?');
+        }
+        return position;
+    }
+
+    // Passenger names may be non-ASCII; cut on a UTF-8 character boundary
+    private static int writeName(byte[] buffer, int position, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_NAME_BYTES);
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer[position++] = (byte) length;
+        System.arraycopy(bytes, 0, buffer, position, length);
+        return position + length;
+    }
+
+    private static int writeVarLong(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] data, int limit) {
+            this.data = data;
+            this.limit = limit;
+        }
+
+        int readByte() {
+            if (position >= limit) {
+                throw new IllegalArgumentException("Ticket code is truncated");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        String readString() {
+            int length = readByte();
+            if (position + length > limit) {
+                throw new IllegalArgumentException("Ticket code is truncated");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed number in ticket code");
+        }
+    }
+}
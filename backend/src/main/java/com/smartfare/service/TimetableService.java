@@ -0,0 +1,255 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.ScheduleSummary;
+import com.smartfare.dto.SeatCount;
+import com.smartfare.repository.BusScheduleRepository;
+import com.smartfare.util.BoundedCache;
+import com.smartfare.util.SeatInventory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Holds one TimetableSnapshot per upcoming travel date. Snapshots are built at
+// startup and again every night, and a date-wide schedule change rebuilds that
+// date; readers keep using the old snapshot until the new one is swapped in.
+// Search and schedule detail come from the snapshot, seat counts from the seat
+// inventory when it is loaded and otherwise from one query for the whole result.
+// Dates outside the window get a snapshot too, kept in a small LRU cache for a
+// few minutes so repeated searches for them are not rebuilt each time.
+@Service
+public class TimetableService {
+
+    @Autowired
+    private BusScheduleRepository busScheduleRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private FarePricingService farePricingService;
+
+    private final int daysAhead;
+    private final ConcurrentHashMap<LocalDate, TimetableSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final BoundedCache<LocalDate, TimetableSnapshot> otherDates;
+
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder seatQueries = new LongAdder();
+    private volatile long lastBuildMillis;
+
+    public TimetableService(@Value("${smartfare.timetable.days-ahead:14}") int daysAhead,
+                            @Value("${smartfare.timetable.other-dates.max-entries:32}") int otherDatesMaxEntries,
+                            @Value("${smartfare.timetable.other-dates.ttl-minutes:10}") long otherDatesTtlMinutes) {
+        this.daysAhead = Math.max(daysAhead, 1);
+        this.otherDates = new BoundedCache<>(otherDatesMaxEntries, TimeUnit.MINUTES.toMillis(otherDatesTtlMinutes));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    // Drops past dates, with their seat inventories, and rebuilds every date in the window
+    @Scheduled(cron = "${smartfare.timetable.rebuild-cron:0 5 0 * * *}")
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        snapshots.keySet().removeIf(date -> date.isBefore(today));
+        int dropped = seatInventoryService.dropScheduledBefore(today);
+        if (dropped > 0) {
+            System.out.println("🧹 Dropped seat inventories of " + dropped + " departed schedules");
+        }
+        int departures = 0;
+        for (int d = 0; d < daysAhead; d++) {
+            departures += snapshots.compute(today.plusDays(d), (date, old) -> build(date)).departureCount();
+        }
+        System.out.println("🗓️ Timetable snapshots built for " + daysAhead + " days (" + departures
+                + " departures) in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public TimetableSnapshot getSnapshot(LocalDate date) {
+        TimetableSnapshot snapshot = snapshots.get(date);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        if (!inWindow(date)) {
+            long generation = otherDates.generation();
+            snapshot = otherDates.get(date);
+            if (snapshot == null) {
+                snapshot = build(date);
+                otherDates.putIfGeneration(date, snapshot, generation);
+            }
+            return snapshot;
+        }
+        return snapshots.computeIfAbsent(date, this::build);
+    }
+
+    // Scheduled departures between two stops with seats left, earliest first
+    public List<ScheduleSummary> findDepartures(Long fromLocationId, Long toLocationId, LocalDate date) {
+        searches.increment();
+        TimetableSnapshot snapshot = getSnapshot(date);
+        int route = snapshot.route(fromLocationId, toLocationId);
+        if (route < 0) {
+            return List.of();
+        }
+        int first = snapshot.firstDeparture(route);
+        int end = snapshot.endDeparture(route);
+        int[] seats = liveSeats(snapshot, first, end);
+
+        List<ScheduleSummary> departures = new ArrayList<>(end - first);
+        for (int i = first; i < end; i++) {
+            if (seats[i - first] > 0) {
+                departures.add(priced(snapshot.summary(i), seats[i - first]));
+            }
+        }
+        return departures;
+    }
+
+    // Schedule detail from whichever snapshot holds it, or null when none does
+    public ScheduleSummary findSchedule(Long scheduleId) {
+        for (TimetableSnapshot snapshot : snapshots.values()) {
+            int i = snapshot.indexOf(scheduleId);
+            if (i >= 0) {
+                return priced(snapshot.summary(i), liveSeats(snapshot, i, i + 1)[0]);
+            }
+        }
+        return null;
+    }
+
+    // Rows for the given ids from whichever snapshots hold them, with live seat
+    // counts (one query for any not in the seat inventory) and the fare they were
+    // built with. Ids no snapshot holds are left out.
+    public Map<Long, ScheduleSummary> findSchedules(Collection<Long> scheduleIds) {
+        Map<Long, ScheduleSummary> rows = new HashMap<>();
+        List<Long> unloaded = null;
+        for (Long scheduleId : scheduleIds) {
+            if (rows.containsKey(scheduleId)) {
+                continue;
+            }
+            for (TimetableSnapshot snapshot : snapshots.values()) {
+                int i = snapshot.indexOf(scheduleId);
+                if (i < 0) {
+                    continue;
+                }
+                ScheduleSummary summary = snapshot.summary(i);
+                SeatInventory inventory = seatInventoryService.findInventory(scheduleId);
+                if (inventory != null) {
+                    summary = summary.withAvailability(inventory.getAvailableSeats(), summary.fare());
+                } else {
+                    if (unloaded == null) {
+                        unloaded = new ArrayList<>();
+                    }
+                    unloaded.add(scheduleId);
+                }
+                rows.put(scheduleId, summary);
+                break;
+            }
+        }
+        if (unloaded != null) {
+            seatQueries.increment();
+            Map<Long, Integer> counts = new HashMap<>();
+            for (SeatCount count : busScheduleRepository.findSeatCounts(unloaded)) {
+                counts.put(count.scheduleId(), count.availableSeats());
+            }
+            // deleted since the snapshot was built: no seats
+            for (Long scheduleId : unloaded) {
+                ScheduleSummary summary = rows.get(scheduleId);
+                rows.put(scheduleId, summary.withAvailability(counts.getOrDefault(scheduleId, 0), summary.fare()));
+            }
+        }
+        return rows;
+    }
+
+    // Live seats for every departure in the snapshot, indexed like its departures
+    public int[] liveSeats(TimetableSnapshot snapshot) {
+        return liveSeats(snapshot, 0, snapshot.departureCount());
+    }
+
+    private ScheduleSummary priced(ScheduleSummary summary, int seats) {
+        return summary.withAvailability(seats, farePricingService.quote(summary, seats).fare());
+    }
+
+    // Departures were added, removed or retimed; bookings only move seat counts,
+    // which are never taken from the snapshot
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.affectsAllRoutes()) {
+            snapshots.computeIfPresent(event.scheduleDate(), (date, old) -> build(date));
+            otherDates.invalidate(event.scheduleDate());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int departures = 0;
+        for (TimetableSnapshot snapshot : snapshots.values()) {
+            departures += snapshot.departureCount();
+        }
+        stats.put("dates", snapshots.size());
+        stats.put("daysAhead", daysAhead);
+        stats.put("departures", departures);
+        stats.put("builds", builds.sum());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        stats.put("searches", searches.sum());
+        stats.put("seatQueries", seatQueries.sum());
+        stats.put("otherDates", otherDates.getStats());
+        return stats;
+    }
+
+    private TimetableSnapshot build(LocalDate date) {
+        long start = System.currentTimeMillis();
+        // Rows carry the fare quoted at build time, which the journey planner ranks
+        // CHEAPEST on; what callers are shown is quoted again from live seats
+        List<ScheduleSummary> summaries = new ArrayList<>();
+        for (ScheduleSummary summary : busScheduleRepository.findScheduledSummariesByDate(date)) {
+            summaries.add(priced(summary, summary.availableSeats()));
+        }
+        TimetableSnapshot snapshot = new TimetableSnapshot(date, summaries);
+        builds.increment();
+        lastBuildMillis = System.currentTimeMillis() - start;
+        return snapshot;
+    }
+
+    // Live seats for departures first until end. A schedule missing from the table
+    // (deleted since the snapshot was built) counts as having none.
+    private int[] liveSeats(TimetableSnapshot snapshot, int first, int end) {
+        int[] seats = new int[end - first];
+        List<Long> unloaded = null;
+        for (int i = first; i < end; i++) {
+            SeatInventory inventory = seatInventoryService.findInventory(snapshot.scheduleId(i));
+            if (inventory != null) {
+                seats[i - first] = inventory.getAvailableSeats();
+            } else {
+                if (unloaded == null) {
+                    unloaded = new ArrayList<>();
+                }
+                unloaded.add(snapshot.scheduleId(i));
+            }
+        }
+        if (unloaded != null) {
+            seatQueries.increment();
+            for (SeatCount count : busScheduleRepository.findSeatCounts(unloaded)) {
+                seats[snapshot.indexOf(count.scheduleId()) - first] = count.availableSeats();
+            }
+        }
+        return seats;
+    }
+
+    private boolean inWindow(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return !date.isBefore(today) && date.isBefore(today.plusDays(daysAhead));
+    }
+}
@@ -0,0 +1,164 @@
+package com.smartfare.service;
+
+import com.smartfare.dto.ScheduleSummary;
+import com.smartfare.util.ConnectionTimetable;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// One travel date's scheduled departures, packed for lookups that allocate nothing.
+// Departures are grouped by route (from, to) and sorted by departure minute within
+// each route; routes and schedule ids are found by binary search over primitive
+// arrays. Seat counts are deliberately left out - they change with every booking
+// and are read live. Immutable, so TimetableService can swap a new one in whole.
+public final class TimetableSnapshot {
+
+    private final LocalDate date;
+    private final long builtAt;
+
+    // route r covers departures routeOffsets[r] until routeOffsets[r + 1]
+    private final long[] routeFrom;
+    private final long[] routeTo;
+    private final int[] routeOffsets;
+
+    private final long[] scheduleIds;
+    private final ScheduleSummary[] summaries;
+
+    // schedule ids ascending, with the departure holding each
+    private final long[] sortedIds;
+    private final int[] idPositions;
+
+    private final ConnectionTimetable connections;
+    private final int[] connectionDepartures;
+
+    public TimetableSnapshot(LocalDate date, List<ScheduleSummary> schedules) {
+        this.date = date;
+        this.builtAt = System.currentTimeMillis();
+
+        ScheduleSummary[] ordered = schedules.toArray(new ScheduleSummary[0]);
+        Arrays.sort(ordered, Comparator
+            .comparingLong((ScheduleSummary s) -> s.route().fromLocation().id())
+            .thenComparingLong(s -> s.route().toLocation().id())
+            .thenComparingInt(s -> minuteOfDay(s.departureTime()))
+            .thenComparingLong(ScheduleSummary::id));
+        int n = ordered.length;
+        this.summaries = ordered;
+        this.scheduleIds = new long[n];
+
+        int routes = 0;
+        long[] from = new long[n];
+        long[] to = new long[n];
+        int[] offsets = new int[n + 1];
+        ConnectionTimetable.Builder builder = ConnectionTimetable.builder();
+        for (int i = 0; i < n; i++) {
+            ScheduleSummary schedule = ordered[i];
+            long fromId = schedule.route().fromLocation().id();
+            long toId = schedule.route().toLocation().id();
+            if (routes == 0 || from[routes - 1] != fromId || to[routes - 1] != toId) {
+                from[routes] = fromId;
+                to[routes] = toId;
+                offsets[routes] = i;
+                routes++;
+            }
+            scheduleIds[i] = schedule.id();
+            builder.add(schedule.id(), fromId, toId,
+                minuteOfDay(schedule.departureTime()),
+                minuteOfDay(schedule.arrivalTime()),
+                schedule.fare().setScale(2, RoundingMode.HALF_UP).unscaledValue().intValueExact());
+        }
+        offsets[routes] = n;
+        this.routeFrom = Arrays.copyOf(from, routes);
+        this.routeTo = Arrays.copyOf(to, routes);
+        this.routeOffsets = Arrays.copyOf(offsets, routes + 1);
+
+        this.sortedIds = scheduleIds.clone();
+        Arrays.sort(sortedIds);
+        this.idPositions = new int[n];
+        for (int i = 0; i < n; i++) {
+            idPositions[Arrays.binarySearch(sortedIds, scheduleIds[i])] = i;
+        }
+
+        this.connections = builder.build();
+        this.connectionDepartures = new int[connections.connectionCount()];
+        for (int c = 0; c < connectionDepartures.length; c++) {
+            connectionDepartures[c] = indexOf(connections.scheduleId(c));
+        }
+    }
+
+    public LocalDate date() {
+        return date;
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    public int routeCount() {
+        return routeFrom.length;
+    }
+
+    public int departureCount() {
+        return scheduleIds.length;
+    }
+
+    // Route index for (from, to), or -1 when nothing runs between them that day
+    public int route(long fromLocationId, long toLocationId) {
+        int low = 0;
+        int high = routeFrom.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = routeFrom[mid] != fromLocationId ? Long.compare(routeFrom[mid], fromLocationId)
+                                                       : Long.compare(routeTo[mid], toLocationId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public int firstDeparture(int route) {
+        return routeOffsets[route];
+    }
+
+    public int endDeparture(int route) {
+        return routeOffsets[route + 1];
+    }
+
+    public long scheduleId(int departure) {
+        return scheduleIds[departure];
+    }
+
+    public ScheduleSummary summary(int departure) {
+        return summaries[departure];
+    }
+
+    // Departure index of a schedule, or -1 when it is not in this snapshot
+    public int indexOf(long scheduleId) {
+        int i = Arrays.binarySearch(sortedIds, scheduleId);
+        return i >= 0 ? idPositions[i] : -1;
+    }
+
+    public ConnectionTimetable connections() {
+        return connections;
+    }
+
+    public ScheduleSummary connectionSummary(int connection) {
+        return summaries[connectionDepartures[connection]];
+    }
+
+    // Departure index of a connection, for arrays indexed like the departures
+    public int connectionDeparture(int connection) {
+        return connectionDepartures[connection];
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
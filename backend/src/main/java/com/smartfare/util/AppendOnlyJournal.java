@@ -0,0 +1,411 @@
+package com.smartfare.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only record log in fixed-size, memory-mapped segment files. Appends from
+// any thread are queued and written by a single writer thread, which forces each
+// batch to disk once and then completes every append in it (group commit), so an
+// append's future completes only when its record is durable.
+//
+// A record is [payload length][crc32c][sequence][payload]; the unwritten rest of a
+// segment is zeros, which ends it. On open the newest segment is scanned and
+// anything from the first torn, corrupt or out-of-sequence record on is dropped.
+// A checkpoint file records how far a consumer has applied the log; segments
+// wholly at or before it can be compacted away.
+public final class AppendOnlyJournal implements Closeable {
+
+    public record Entry(long sequence, byte[] payload) {}
+
+    private static final int HEADER_BYTES = 16;
+    private static final int CHECKPOINT_BYTES = 12;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private record PendingAppend(byte[] payload, CompletableFuture<Long> future) {}
+
+    private record ScanResult(int end, long nextSequence, boolean torn) {}
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final FileChannel checkpointChannel;
+
+    // first sequence -> segment file; guarded by itself
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    // writer thread only, once open
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private int position;
+
+    private volatile long lastSequence;
+    private volatile long checkpoint;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final LongAdder compacted = new LongAdder();
+
+    public AppendOnlyJournal(Path directory, int segmentBytes, int maxBatch) throws IOException {
+        if (segmentBytes < 4096 || maxBatch < 1) {
+            throw new IllegalArgumentException("Journal segments must be at least 4 KB and batches at least 1 record");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBatch = maxBatch;
+
+        Files.createDirectories(directory);
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = readCheckpoint();
+        recover();
+
+        this.writer = new Thread(this::runWriter, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Completes with the record's sequence once it is on disk, or exceptionally if
+    // the journal is closed or a write failed
+    public CompletableFuture<Long> append(byte[] payload) {
+        if (payload.length == 0 || payload.length > segmentBytes - HEADER_BYTES) {
+            throw new IllegalArgumentException("Journal record must be 1 to " + (segmentBytes - HEADER_BYTES) + " bytes");
+        }
+        PendingAppend pending = new PendingAppend(payload, new CompletableFuture<>());
+        if (closed || failure != null) {
+            pending.future().completeExceptionally(unavailable());
+            return pending.future();
+        }
+        queue.add(pending);
+        return pending.future();
+    }
+
+    // Every durable record after the given sequence, oldest first
+    public void replay(long afterSequence, Consumer<Entry> consumer) throws IOException {
+        List<Map.Entry<Long, Path>> files;
+        synchronized (segments) {
+            files = new ArrayList<>(segments.entrySet());
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (i + 1 < files.size() && files.get(i + 1).getKey() <= afterSequence + 1) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(files.get(i).getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                scan(buffer, files.get(i).getKey(), entry -> {
+                    if (entry.sequence() > afterSequence) {
+                        consumer.accept(entry);
+                    }
+                });
+            }
+        }
+    }
+
+    // Durably records that everything up to sequence has been applied
+    public synchronized void checkpoint(long sequence) throws IOException {
+        if (sequence <= checkpoint) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        buffer.putLong(sequence);
+        buffer.putInt(crc(buffer.array(), 0, 8));
+        buffer.flip();
+        checkpointChannel.write(buffer, 0);
+        checkpointChannel.force(false);
+        checkpoint = sequence;
+    }
+
+    // Deletes segments whose records are all covered by the checkpoint; the
+    // segment being written is always kept
+    public int compact() throws IOException {
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (segments) {
+            while (segments.size() > 1) {
+                Long next = segments.higherKey(segments.firstKey());
+                if (next - 1 > checkpoint) {
+                    break;
+                }
+                obsolete.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        for (Path file : obsolete) {
+            Files.deleteIfExists(file);
+        }
+        compacted.add(obsolete.size());
+        return obsolete.size();
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public long checkpointSequence() {
+        return checkpoint;
+    }
+
+    public Map<String, Object> getStats() {
+        long flushCount = flushes.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("directory", directory.toString());
+        synchronized (segments) {
+            stats.put("segments", segments.size());
+        }
+        stats.put("segmentBytes", segmentBytes);
+        stats.put("lastSequence", lastSequence);
+        stats.put("checkpoint", checkpoint);
+        stats.put("queued", queue.size());
+        stats.put("appended", appended.sum());
+        stats.put("groupCommits", flushCount);
+        stats.put("avgRecordsPerCommit", flushCount == 0 ? 0.0 : (double) appended.sum() / flushCount);
+        stats.put("largestCommit", largestBatch.get());
+        stats.put("avgCommitMicros", flushCount == 0 ? 0 : flushNanos.sum() / flushCount / 1000);
+        stats.put("bytesWritten", bytesWritten.sum());
+        stats.put("segmentsCompacted", compacted.sum());
+        stats.put("failed", failure != null);
+        return stats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingAppend pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future().completeExceptionally(unavailable());
+        }
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+        checkpointChannel.close();
+    }
+
+    private void runWriter() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (failure != null) {
+                for (PendingAppend pending : batch) {
+                    pending.future().completeExceptionally(unavailable());
+                }
+            } else {
+                commit(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingAppend> batch) {
+        int from = 0;
+        try {
+            while (from < batch.size()) {
+                if (position + HEADER_BYTES + batch.get(from).payload().length > segmentBytes) {
+                    openSegment(lastSequence + 1);
+                }
+                from = commitRun(batch, from);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            System.err.println("Journal write failed, no further appends accepted: " + e.getMessage());
+            for (int i = from; i < batch.size(); i++) {
+                batch.get(i).future().completeExceptionally(unavailable());
+            }
+        }
+    }
+
+    // Writes records from `from` on while they fit in the active segment, forces
+    // them with one call and acknowledges them; returns the first record not written
+    private int commitRun(List<PendingAppend> batch, int from) {
+        long start = System.nanoTime();
+        int runStart = position;
+        long sequence = lastSequence;
+        int end = from;
+        while (end < batch.size() && position + HEADER_BYTES + batch.get(end).payload().length <= segmentBytes) {
+            write(++sequence, batch.get(end).payload());
+            end++;
+        }
+        try {
+            active.force(runStart, position - runStart);
+        } catch (RuntimeException e) {
+            // None of the run is acknowledged: cut the segment where it began so it
+            // is not replayed later either
+            position = runStart;
+            active.putInt(runStart, 0);
+            throw e;
+        }
+
+        lastSequence = sequence;
+        for (int i = from; i < end; i++) {
+            batch.get(i).future().complete(sequence - (end - 1 - i));
+        }
+        appended.add(end - from);
+        flushes.increment();
+        flushNanos.add(System.nanoTime() - start);
+        bytesWritten.add(position - runStart);
+        largestBatch.accumulateAndGet(end - from, Math::max);
+        return end;
+    }
+
+    private void write(long sequence, byte[] payload) {
+        active.putInt(position, payload.length);
+        active.putInt(position + 4, crc(sequence, payload));
+        active.putLong(position + 8, sequence);
+        active.put(position + HEADER_BYTES, payload);
+        position += HEADER_BYTES + payload.length;
+    }
+
+    // Only the newest segment can end in a torn write; older ones were complete
+    // when the writer moved past them
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .forEach(file -> segments.put(firstSequence(file), file));
+        }
+        if (segments.isEmpty()) {
+            lastSequence = checkpoint;
+            openSegment(checkpoint + 1);
+            return;
+        }
+
+        Map.Entry<Long, Path> newest = segments.lastEntry();
+        activeChannel = FileChannel.open(newest.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        ScanResult result = scan(active, newest.getKey(), null);
+        position = result.end();
+        lastSequence = result.nextSequence() - 1;
+        if (result.torn()) {
+            for (int i = position; i < segmentBytes; i++) {
+                active.put(i, (byte) 0);
+            }
+            active.force();
+            System.err.println("Journal " + newest.getValue().getFileName() + ": discarded a torn record after sequence " + lastSequence);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(file,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        position = 0;
+        forceDirectory();
+        synchronized (segments) {
+            segments.put(firstSequence, file);
+        }
+    }
+
+    // Makes the new segment's directory entry durable; not every platform allows it
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    private static ScanResult scan(ByteBuffer buffer, long firstSequence, Consumer<Entry> consumer) {
+        int limit = buffer.limit();
+        int pos = 0;
+        long expected = firstSequence;
+        while (pos + HEADER_BYTES <= limit) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || length > limit - pos - HEADER_BYTES) {
+                break;
+            }
+            long sequence = buffer.getLong(pos + 8);
+            if (sequence != expected) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(pos + HEADER_BYTES, payload);
+            if (crc(sequence, payload) != buffer.getInt(pos + 4)) {
+                break;
+            }
+            if (consumer != null) {
+                consumer.accept(new Entry(sequence, payload));
+            }
+            pos += HEADER_BYTES + length;
+            expected++;
+        }
+        boolean torn = pos + 4 <= limit && buffer.getInt(pos) != 0;
+        return new ScanResult(pos, expected, torn);
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpointChannel.size() < CHECKPOINT_BYTES) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        checkpointChannel.read(buffer, 0);
+        // a torn checkpoint only means replaying more than needed
+        return buffer.getInt(8) == crc(buffer.array(), 0, 8) ? buffer.getLong(0) : 0;
+    }
+
+    private static long firstSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int crc(long sequence, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (sequence >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private IOException unavailable() {
+        return new IOException(failure != null ? "Journal write failed: " + failure.getMessage() : "Journal is closed");
+    }
+}
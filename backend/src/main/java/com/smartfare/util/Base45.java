@@ -0,0 +1,70 @@
+package com.smartfare.util;
+
+// RFC 9285 Base45. Output uses only the QR alphanumeric character set, which
+// QR encoders pack at 5.5 bits per character instead of 8 for byte mode.
+public final class Base45 {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        java.util.Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base45() {}
+
+    public static String encode(byte[] data, int length) {
+        char[] out = new char[(length / 2) * 3 + (length % 2) * 2];
+        int o = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            int n = ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+            out[o++] = ALPHABET[n % 45];
+            out[o++] = ALPHABET[(n / 45) % 45];
+            out[o++] = ALPHABET[n / 2025];
+        }
+        if (i < length) {
+            int n = data[i] & 0xFF;
+            out[o++] = ALPHABET[n % 45];
+            out[o++] = ALPHABET[n / 45];
+        }
+        return new String(out);
+    }
+
+    public static byte[] decode(CharSequence text) {
+        int length = text.length();
+        if (length % 3 == 1) {
+            throw new IllegalArgumentException("Invalid Base45 length");
+        }
+        byte[] out = new byte[(length / 3) * 2 + (length % 3 == 2 ? 1 : 0)];
+        int o = 0;
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int n = digit(text.charAt(i)) + digit(text.charAt(i + 1)) * 45 + digit(text.charAt(i + 2)) * 2025;
+            if (n > 0xFFFF) {
+                throw new IllegalArgumentException("Invalid Base45 triplet");
+            }
+            out[o++] = (byte) (n >> 8);
+            out[o++] = (byte) n;
+        }
+        if (i < length) {
+            int n = digit(text.charAt(i)) + digit(text.charAt(i + 1)) * 45;
+            if (n > 0xFF) {
+                throw new IllegalArgumentException("Invalid Base45 pair");
+            }
+            out[o] = (byte) n;
+        }
+        return out;
+    }
+
+    private static int digit(char c) {
+        int value = c < 128 ? DECODE[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid Base45 character: " + c);
+        }
+        return value;
+    }
+}
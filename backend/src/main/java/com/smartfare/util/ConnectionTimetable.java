@@ -0,0 +1,287 @@
+package com.smartfare.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+// One day of bus departures as a connection array for the Connection Scan Algorithm.
+// Each connection is a single scheduled trip between two stops; connections are
+// kept in parallel primitive arrays sorted by departure. Times are minutes after
+// midnight (arrivals past midnight run over 1440) and fares are in paise.
+// Immutable once built, so it can be shared between request threads.
+public final class ConnectionTimetable {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final long[] stopIds;
+    private final Map<Long, Integer> stopIndex;
+
+    private final long[] scheduleIds;
+    private final int[] departureStop;
+    private final int[] arrivalStop;
+    private final int[] departureMinute;
+    private final int[] arrivalMinute;
+    private final int[] fare;
+
+    private ConnectionTimetable(Builder builder, Integer[] order) {
+        int n = order.length;
+        this.stopIds = builder.stopIds.stream().mapToLong(Long::longValue).toArray();
+        this.stopIndex = builder.stopIndex;
+        this.scheduleIds = new long[n];
+        this.departureStop = new int[n];
+        this.arrivalStop = new int[n];
+        this.departureMinute = new int[n];
+        this.arrivalMinute = new int[n];
+        this.fare = new int[n];
+        for (int i = 0; i < n; i++) {
+            int from = order[i];
+            scheduleIds[i] = builder.scheduleIds[from];
+            departureStop[i] = builder.departureStop[from];
+            arrivalStop[i] = builder.arrivalStop[from];
+            departureMinute[i] = builder.departureMinute[from];
+            arrivalMinute[i] = builder.arrivalMinute[from];
+            fare[i] = builder.fare[from];
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int connectionCount() {
+        return scheduleIds.length;
+    }
+
+    public int stopCount() {
+        return stopIds.length;
+    }
+
+    public long scheduleId(int connection) {
+        return scheduleIds[connection];
+    }
+
+    public int departureMinute(int connection) {
+        return departureMinute[connection];
+    }
+
+    public int arrivalMinute(int connection) {
+        return arrivalMinute[connection];
+    }
+
+    // Connections of the earliest-arriving journey leaving `from` no earlier than
+    // departAfter, or an empty array when the destination cannot be reached.
+    // `bookable` filters connections, e.g. to skip sold-out departures.
+    public int[] earliestArrival(long from, long to, int departAfter, int transferMinutes, int maxLegs,
+                                 IntPredicate bookable) {
+        Integer origin = stopIndex.get(from);
+        Integer target = stopIndex.get(to);
+        if (origin == null || target == null || origin.equals(target)) {
+            return new int[0];
+        }
+
+        int[] arrival = new int[stopIds.length];
+        int[] legs = new int[stopIds.length];
+        int[] via = new int[stopIds.length];
+        Arrays.fill(arrival, INFINITY);
+        Arrays.fill(via, -1);
+        arrival[origin] = departAfter;
+
+        for (int i = firstDepartingAt(departAfter); i < scheduleIds.length; i++) {
+            if (departureMinute[i] >= arrival[target]) {
+                break;
+            }
+            int stop = departureStop[i];
+            if (arrival[stop] == INFINITY || legs[stop] >= maxLegs) {
+                continue;
+            }
+            int ready = stop == origin ? arrival[stop] : arrival[stop] + transferMinutes;
+            int next = arrivalStop[i];
+            if (departureMinute[i] < ready || arrivalMinute[i] >= arrival[next] || next == origin
+                    || !bookable.test(i)) {
+                continue;
+            }
+            arrival[next] = arrivalMinute[i];
+            legs[next] = legs[stop] + 1;
+            via[next] = i;
+        }
+
+        if (via[target] < 0) {
+            return new int[0];
+        }
+        int[] path = new int[legs[target]];
+        for (int stop = target, k = path.length - 1; stop != origin; k--) {
+            path[k] = via[stop];
+            stop = departureStop[via[stop]];
+        }
+        return path;
+    }
+
+    // Connections of the cheapest journey, arriving as early as possible among the
+    // cheapest. Keeps a Pareto set of (arrival, fare) labels per stop, since a
+    // cheaper way into a stop may arrive too late for some onward departures.
+    public int[] cheapest(long from, long to, int departAfter, int transferMinutes, int maxLegs,
+                          IntPredicate bookable) {
+        Integer origin = stopIndex.get(from);
+        Integer target = stopIndex.get(to);
+        if (origin == null || target == null || origin.equals(target)) {
+            return new int[0];
+        }
+
+        // labels[stop]: arrival ascending, fare strictly descending
+        List<List<Label>> labels = new ArrayList<>(stopIds.length);
+        for (int i = 0; i < stopIds.length; i++) {
+            labels.add(null);
+        }
+        List<Label> start = new ArrayList<>();
+        start.add(new Label(departAfter, 0, 0, -1, null));
+        labels.set(origin, start);
+        int bestFare = INFINITY;
+
+        for (int i = firstDepartingAt(departAfter); i < scheduleIds.length; i++) {
+            int stop = departureStop[i];
+            int next = arrivalStop[i];
+            List<Label> here = labels.get(stop);
+            if (here == null || next == origin) {
+                continue;
+            }
+            int latestArrival = stop == origin ? departureMinute[i] : departureMinute[i] - transferMinutes;
+            Label boarding = lastArrivingBy(here, latestArrival);
+            if (boarding == null || boarding.legs >= maxLegs) {
+                continue;
+            }
+            int total = boarding.fare + fare[i];
+            if (total > bestFare || !bookable.test(i)) {
+                continue;
+            }
+            Label label = new Label(arrivalMinute[i], total, boarding.legs + 1, i, boarding);
+            List<Label> there = labels.get(next);
+            if (there == null) {
+                there = new ArrayList<>();
+                labels.set(next, there);
+            }
+            if (insertIfNotDominated(there, label) && next == target) {
+                bestFare = Math.min(bestFare, total);
+            }
+        }
+
+        List<Label> reached = labels.get(target);
+        if (reached == null) {
+            return new int[0];
+        }
+        Label best = reached.get(reached.size() - 1);
+        int[] path = new int[best.legs];
+        for (Label label = best; label.connection >= 0; label = label.previous) {
+            path[label.legs - 1] = label.connection;
+        }
+        return path;
+    }
+
+    private record Label(int arrival, int fare, int legs, int connection, Label previous) {}
+
+    // Fares fall as arrivals get later, so the last label in time is the cheapest usable one
+    private static Label lastArrivingBy(List<Label> labels, int latestArrival) {
+        int low = 0;
+        int high = labels.size() - 1;
+        Label found = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels.get(mid).arrival <= latestArrival) {
+                found = labels.get(mid);
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static boolean insertIfNotDominated(List<Label> labels, Label label) {
+        int position = 0;
+        while (position < labels.size() && labels.get(position).arrival < label.arrival) {
+            position++;
+        }
+        if (position > 0 && labels.get(position - 1).fare <= label.fare) {
+            return false;
+        }
+        if (position < labels.size() && labels.get(position).arrival == label.arrival
+                && labels.get(position).fare <= label.fare) {
+            return false;
+        }
+        while (position < labels.size() && labels.get(position).fare >= label.fare) {
+            labels.remove(position);
+        }
+        labels.add(position, label);
+        return true;
+    }
+
+    private int firstDepartingAt(int minute) {
+        int low = 0;
+        int high = departureMinute.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departureMinute[mid] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static final class Builder {
+        private final List<Long> stopIds = new ArrayList<>();
+        private final Map<Long, Integer> stopIndex = new HashMap<>();
+        private long[] scheduleIds = new long[64];
+        private int[] departureStop = new int[64];
+        private int[] arrivalStop = new int[64];
+        private int[] departureMinute = new int[64];
+        private int[] arrivalMinute = new int[64];
+        private int[] fare = new int[64];
+        private int size;
+
+        public Builder add(long scheduleId, long fromStop, long toStop, int departure, int arrival, int farePaise) {
+            if (size == scheduleIds.length) {
+                int capacity = size * 2;
+                scheduleIds = Arrays.copyOf(scheduleIds, capacity);
+                departureStop = Arrays.copyOf(departureStop, capacity);
+                arrivalStop = Arrays.copyOf(arrivalStop, capacity);
+                departureMinute = Arrays.copyOf(departureMinute, capacity);
+                arrivalMinute = Arrays.copyOf(arrivalMinute, capacity);
+                fare = Arrays.copyOf(fare, capacity);
+            }
+            scheduleIds[size] = scheduleId;
+            departureStop[size] = stop(fromStop);
+            arrivalStop[size] = stop(toStop);
+            departureMinute[size] = departure;
+            // a trip that arrives "before" it leaves runs past midnight
+            arrivalMinute[size] = arrival < departure ? arrival + 24 * 60 : arrival;
+            fare[size] = farePaise;
+            size++;
+            return this;
+        }
+
+        public ConnectionTimetable build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> departureMinute[a] != departureMinute[b]
+                ? Integer.compare(departureMinute[a], departureMinute[b])
+                : Integer.compare(arrivalMinute[a], arrivalMinute[b]));
+            return new ConnectionTimetable(this, order);
+        }
+
+        private int stop(long stopId) {
+            Integer index = stopIndex.get(stopId);
+            if (index == null) {
+                index = stopIds.size();
+                stopIds.add(stopId);
+                stopIndex.put(stopId, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.smartfare.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Immutable pricing rule table. Amounts are whole paise and every multiplier is a
+// percentage, so a price is a handful of long multiplications and array lookups.
+// Tables are written as "threshold:percent" pairs, e.g. "0:100,50:110,75:125";
+// the last row whose threshold has been reached applies.
+public final class FareRules {
+
+    private final long perKmPaise;
+    private final Map<String, Integer> busTypePercents;
+    private final int defaultBusTypePercent;
+    private final int[] occupancyThresholds;
+    private final int[] occupancyPercents;
+    private final int[] leadTimeThresholdHours;
+    private final long[] leadTimeThresholdMinutes;
+    private final int[] leadTimePercents;
+    private final int maxPercent;
+    private final long roundToPaise;
+
+    public FareRules(long perKmPaise, String busTypes, int defaultBusTypePercent,
+                     String occupancy, String leadTimeHours, int maxPercent, long roundToPaise) {
+        if (maxPercent < 100 || roundToPaise < 1) {
+            throw new IllegalArgumentException("Fare cap must be at least 100% and rounding at least 1 paise");
+        }
+        this.perKmPaise = perKmPaise;
+        this.busTypePercents = Map.copyOf(parseNamed(busTypes));
+        this.defaultBusTypePercent = defaultBusTypePercent;
+
+        int[][] occupancyTable = parseTable(occupancy);
+        this.occupancyThresholds = occupancyTable[0];
+        this.occupancyPercents = occupancyTable[1];
+
+        int[][] leadTable = parseTable(leadTimeHours);
+        this.leadTimeThresholdHours = leadTable[0];
+        this.leadTimeThresholdMinutes = new long[leadTable[0].length];
+        for (int i = 0; i < leadTable[0].length; i++) {
+            leadTimeThresholdMinutes[i] = leadTable[0][i] * 60L;
+        }
+        this.leadTimePercents = leadTable[1];
+        this.maxPercent = maxPercent;
+        this.roundToPaise = roundToPaise;
+    }
+
+    public long perKmPaise() {
+        return perKmPaise;
+    }
+
+    public int busTypePercent(String typeName) {
+        Integer percent = typeName != null ? busTypePercents.get(typeName) : null;
+        return percent != null ? percent : defaultBusTypePercent;
+    }
+
+    // Row of the occupancy table for the share of seats sold, in whole percent
+    public int occupancyBucket(int totalSeats, int availableSeats) {
+        int sold = totalSeats > 0 ? Math.max(0, totalSeats - availableSeats) * 100 / totalSeats : 0;
+        return bucket(occupancyThresholds, sold);
+    }
+
+    // Row of the lead-time table; departed and unlisted short lead times use the first
+    public int leadTimeBucket(long minutesToDeparture) {
+        int row = 0;
+        while (row + 1 < leadTimeThresholdMinutes.length && leadTimeThresholdMinutes[row + 1] <= minutesToDeparture) {
+            row++;
+        }
+        return row;
+    }
+
+    public int occupancyPercent(int bucket) {
+        return occupancyPercents[bucket];
+    }
+
+    public int leadTimePercent(int bucket) {
+        return leadTimePercents[bucket];
+    }
+
+    // Base fare scaled by each multiplier in turn, capped at maxPercent of the
+    // base and rounded half-up to roundToPaise
+    public long price(long basePaise, int busTypePercent, int occupancyBucket, int leadTimeBucket) {
+        long paise = scale(basePaise, busTypePercent);
+        paise = scale(paise, occupancyPercents[occupancyBucket]);
+        paise = scale(paise, leadTimePercents[leadTimeBucket]);
+        paise = Math.min(paise, scale(basePaise, maxPercent));
+        return (paise + roundToPaise / 2) / roundToPaise * roundToPaise;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> rules = new HashMap<>();
+        rules.put("perKmPaise", perKmPaise);
+        rules.put("busTypePercents", busTypePercents);
+        rules.put("defaultBusTypePercent", defaultBusTypePercent);
+        rules.put("occupancyThresholds", Arrays.toString(occupancyThresholds));
+        rules.put("occupancyPercents", Arrays.toString(occupancyPercents));
+        rules.put("leadTimeThresholdHours", Arrays.toString(leadTimeThresholdHours));
+        rules.put("leadTimePercents", Arrays.toString(leadTimePercents));
+        rules.put("maxPercent", maxPercent);
+        rules.put("roundToPaise", roundToPaise);
+        return rules;
+    }
+
+    private static long scale(long paise, int percent) {
+        return (paise * percent + 50) / 100;
+    }
+
+    private static int bucket(int[] thresholds, int value) {
+        int row = 0;
+        while (row + 1 < thresholds.length && thresholds[row + 1] <= value) {
+            row++;
+        }
+        return row;
+    }
+
+    // "0:100,50:110" -> {{0, 50}, {100, 110}}, thresholds strictly increasing
+    private static int[][] parseTable(String spec) {
+        String[] rows = spec.split(",");
+        int[][] table = new int[2][rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            String[] parts = rows[i].split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid fare rule '" + rows[i].trim() + "' in: " + spec);
+            }
+            table[0][i] = Integer.parseInt(parts[0].trim());
+            table[1][i] = Integer.parseInt(parts[1].trim());
+            if (i > 0 && table[0][i] <= table[0][i - 1]) {
+                throw new IllegalArgumentException("Fare rule thresholds must increase: " + spec);
+            }
+        }
+        return table;
+    }
+
+    // "Ordinary:100,AC Express:115" -> {Ordinary=100, AC Express=115}
+    private static Map<String, Integer> parseNamed(String spec) {
+        Map<String, Integer> named = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return named;
+        }
+        for (String row : spec.split(",")) {
+            int colon = row.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Invalid bus type rule '" + row.trim() + "' in: " + spec);
+            }
+            named.put(row.substring(0, colon).trim(), Integer.parseInt(row.substring(colon + 1).trim()));
+        }
+        return named;
+    }
+}
@@ -0,0 +1,199 @@
+package com.smartfare.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Uniform latitude/longitude grid for nearest-point queries. Points are bucketed
+// into square cells; a query scans rings of cells around the query point and stops
+// once no unvisited cell can hold anything closer than the k-th best so far.
+// Not thread-safe: callers guard reads and writes.
+public final class GeoGrid {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    public record Neighbor(long id, double distanceKm) {}
+
+    private static final class Cell {
+        long[] ids = new long[4];
+        double[] coordinates = new double[8];
+        int size;
+
+        void add(long id, double lat, double lon) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                coordinates = Arrays.copyOf(coordinates, size * 4);
+            }
+            ids[size] = id;
+            coordinates[2 * size] = lat;
+            coordinates[2 * size + 1] = lon;
+            size++;
+        }
+
+        void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    coordinates[2 * i] = coordinates[2 * size];
+                    coordinates[2 * i + 1] = coordinates[2 * size + 1];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final double cellDegrees;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Long, Long> cellById = new HashMap<>();
+
+    // Bounds of the cells that have ever held a point, to stop ring scans early
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+    private int minCol = Integer.MAX_VALUE;
+    private int maxCol = Integer.MIN_VALUE;
+
+    public GeoGrid(double cellDegrees) {
+        if (cellDegrees <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellDegrees = cellDegrees;
+    }
+
+    public void put(long id, double lat, double lon) {
+        remove(id);
+        int row = row(lat);
+        int col = col(lon);
+        long key = key(row, col);
+        cells.computeIfAbsent(key, k -> new Cell()).add(id, lat, lon);
+        cellById.put(id, key);
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minCol = Math.min(minCol, col);
+        maxCol = Math.max(maxCol, col);
+    }
+
+    public void remove(long id) {
+        Long key = cellById.remove(id);
+        if (key != null) {
+            Cell cell = cells.get(key);
+            cell.remove(id);
+            if (cell.size == 0) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    public int size() {
+        return cellById.size();
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+
+    // Up to k nearest points within maxDistanceKm (<= 0 for no limit), closest first
+    public List<Neighbor> nearest(double lat, double lon, int k, double maxDistanceKm) {
+        if (k <= 0 || cellById.isEmpty()) {
+            return List.of();
+        }
+        double limit = maxDistanceKm > 0 ? maxDistanceKm : Double.MAX_VALUE;
+        // farthest first, so the head is the one to drop
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(k + 1,
+            (a, b) -> Double.compare(b.distanceKm(), a.distanceKm()));
+
+        int row = row(lat);
+        int col = col(lon);
+        int maxRing = Math.max(Math.max(row - minRow, maxRow - row), Math.max(col - minCol, maxCol - col));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Anything in ring r is at least r - 1 whole cells away. Cells are narrower
+            // east-west away from the equator, so use the width at the ring's far edge.
+            double farLatitude = Math.min(Math.abs(lat) + (ring + 1) * cellDegrees, 89.0);
+            double cellKm = cellDegrees * KM_PER_DEGREE * Math.cos(Math.toRadians(farLatitude));
+            double ringDistance = (ring - 1) * cellKm;
+            if (ring > 0 && ringDistance > limit) {
+                break;
+            }
+            if (best.size() == k && ringDistance > best.peek().distanceKm()) {
+                break;
+            }
+            scanRing(row, col, ring, lat, lon, k, limit, best);
+        }
+
+        List<Neighbor> result = new ArrayList<>(best);
+        result.sort((a, b) -> Double.compare(a.distanceKm(), b.distanceKm()));
+        return result;
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Visits the cells on the square ring at distance `ring`, clipped to the occupied bounds
+    private void scanRing(int row, int col, int ring, double lat, double lon, int k, double limit,
+                          PriorityQueue<Neighbor> best) {
+        int fromCol = Math.max(col - ring, minCol);
+        int toCol = Math.min(col + ring, maxCol);
+        int[] edgeRows = ring == 0 ? new int[] {row} : new int[] {row - ring, row + ring};
+        for (int r : edgeRows) {
+            if (r < minRow || r > maxRow) {
+                continue;
+            }
+            for (int c = fromCol; c <= toCol; c++) {
+                scan(cells.get(key(r, c)), lat, lon, k, limit, best);
+            }
+        }
+        if (ring == 0) {
+            return;
+        }
+        int fromRow = Math.max(row - ring + 1, minRow);
+        int toRow = Math.min(row + ring - 1, maxRow);
+        for (int c : new int[] {col - ring, col + ring}) {
+            if (c < minCol || c > maxCol) {
+                continue;
+            }
+            for (int r = fromRow; r <= toRow; r++) {
+                scan(cells.get(key(r, c)), lat, lon, k, limit, best);
+            }
+        }
+    }
+
+    private static void scan(Cell cell, double lat, double lon, int k, double limit, PriorityQueue<Neighbor> best) {
+        if (cell == null) {
+            return;
+        }
+        for (int i = 0; i < cell.size; i++) {
+            double distance = distanceKm(lat, lon, cell.coordinates[2 * i], cell.coordinates[2 * i + 1]);
+            if (distance > limit) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(new Neighbor(cell.ids[i], distance));
+            } else if (distance < best.peek().distanceKm()) {
+                best.poll();
+                best.add(new Neighbor(cell.ids[i], distance));
+            }
+        }
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellDegrees);
+    }
+
+    private int col(double lon) {
+        return (int) Math.floor(lon / cellDegrees);
+    }
+
+    private static long key(int row, int col) {
+        return (long) row << 32 | (col & 0xffffffffL);
+    }
+}
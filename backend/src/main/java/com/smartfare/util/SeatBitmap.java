@@ -0,0 +1,72 @@
+package com.smartfare.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// One bit per seat, packed into 64-bit words. Claims and releases are a single
+// CAS on the containing word, so they never block and never allocate.
+public final class SeatBitmap {
+
+    private final AtomicLongArray words;
+    private final int capacity;
+
+    public SeatBitmap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Seat capacity cannot be negative");
+        }
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((capacity + 63) >>> 6);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isClaimed(int seat) {
+        checkIndex(seat);
+        return (words.get(seat >>> 6) & (1L << seat)) != 0;
+    }
+
+    public boolean tryClaim(int seat) {
+        checkIndex(seat);
+        int word = seat >>> 6;
+        long mask = 1L << seat;
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean release(int seat) {
+        checkIndex(seat);
+        int word = seat >>> 6;
+        long mask = 1L << seat;
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) == 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current & ~mask)) {
+                return true;
+            }
+        }
+    }
+
+    public int claimedCount() {
+        int count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    private void checkIndex(int seat) {
+        if (seat < 0 || seat >= capacity) {
+            throw new IndexOutOfBoundsException("Seat " + seat + " outside capacity " + capacity);
+        }
+    }
+}
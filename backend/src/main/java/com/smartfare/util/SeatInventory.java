@@ -0,0 +1,88 @@
+package com.smartfare.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-memory seat state for a single schedule: which seats are taken plus the
+// number of seats still on sale. Both are updated lock-free. Seats are
+// addressed by index; the layout turns seat labels into indexes.
+public final class SeatInventory {
+
+    public enum ClaimResult {
+        CLAIMED, SEAT_TAKEN, SOLD_OUT, INVALID_SEAT
+    }
+
+    private final SeatLayout layout;
+    private final SeatBitmap seats;
+    private final AtomicInteger availableSeats;
+
+    public SeatInventory(SeatLayout layout, int availableSeats) {
+        this.layout = layout;
+        this.seats = new SeatBitmap(layout.capacity());
+        this.availableSeats = new AtomicInteger(Math.max(availableSeats, 0));
+    }
+
+    // -1 for labels that are not a seat on this bus
+    public int indexOf(String seatNumber) {
+        return layout.indexOf(seatNumber);
+    }
+
+    // Marks a seat that is already booked in the database; does not touch the
+    // available count, which is loaded separately from the schedule row.
+    public void markBooked(int seat) {
+        if (seat >= 0 && seat < seats.capacity()) {
+            seats.tryClaim(seat);
+        }
+    }
+
+    public ClaimResult claim(int seat) {
+        if (seat < 0 || seat >= seats.capacity()) {
+            return ClaimResult.INVALID_SEAT;
+        }
+        if (!seats.tryClaim(seat)) {
+            return ClaimResult.SEAT_TAKEN;
+        }
+        while (true) {
+            int available = availableSeats.get();
+            if (available <= 0) {
+                seats.release(seat);
+                return ClaimResult.SOLD_OUT;
+            }
+            if (availableSeats.compareAndSet(available, available - 1)) {
+                return ClaimResult.CLAIMED;
+            }
+        }
+    }
+
+    public void release(int seat) {
+        if (seat >= 0 && seat < seats.capacity() && seats.release(seat)) {
+            availableSeats.incrementAndGet();
+        }
+    }
+
+    // Lowers the count to what the database says is left. Never raises it: claims
+    // still in flight have taken seats the database has not seen yet.
+    public void limitAvailable(int storedAvailable) {
+        while (true) {
+            int available = availableSeats.get();
+            if (available <= storedAvailable || availableSeats.compareAndSet(available, Math.max(storedAvailable, 0))) {
+                return;
+            }
+        }
+    }
+
+    public boolean isBooked(int seat) {
+        return seat >= 0 && seat < seats.capacity() && seats.isClaimed(seat);
+    }
+
+    public int getAvailableSeats() {
+        return availableSeats.get();
+    }
+
+    public int getTotalSeats() {
+        return seats.capacity();
+    }
+
+    public int getBookedSeats() {
+        return seats.claimedCount();
+    }
+}
@@ -0,0 +1,52 @@
+package com.smartfare.util;
+
+// Maps seat labels to positions in a SeatInventory. Seats are labelled with a
+// row letter from 'A' and a 1-based number within the row ("A12"), and each
+// label maps to its own index: row * seatsPerRow + number - 1. Labels outside
+// the layout, lower-case rows or numbers with leading zeros map to -1, so no
+// two labels ever share a seat.
+public final class SeatLayout {
+
+    private final int rows;
+    private final int seatsPerRow;
+
+    public SeatLayout(int rows, int seatsPerRow) {
+        if (rows < 1 || rows > 26 || seatsPerRow < 0) {
+            throw new IllegalArgumentException("Seat layout needs 1 to 26 rows and a non-negative row length");
+        }
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+    }
+
+    // The layout the booking page offers: every seat of the bus numbered in row A
+    public static SeatLayout singleRow(int totalSeats) {
+        return new SeatLayout(1, totalSeats);
+    }
+
+    public int capacity() {
+        return rows * seatsPerRow;
+    }
+
+    // Returns -1 for labels that are not a seat in this layout
+    public int indexOf(String seatNumber) {
+        if (seatNumber == null || seatNumber.length() < 2 || seatNumber.length() > 7) {
+            return -1;
+        }
+        int row = seatNumber.charAt(0) - 'A';
+        if (row < 0 || row >= rows || seatNumber.charAt(1) == '0') {
+            return -1;
+        }
+        int number = 0;
+        for (int i = 1; i < seatNumber.length(); i++) {
+            char c = seatNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        if (number > seatsPerRow) {
+            return -1;
+        }
+        return row * seatsPerRow + number - 1;
+    }
+}
@@ -0,0 +1,178 @@
+package com.smartfare.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel (Varghese & Lauck). Level 0 has `wheelSize` slots of
+// `tickMillis`; each level above has slots as wide as the whole level below it,
+// and levels are added as far-off deadlines need them. A timer sits in the
+// lowest level its deadline fits; when time reaches one of an upper level's
+// slots, the slot's timers cascade down. Scheduling and cancelling are O(1)
+// list operations, and advancing costs one slot per tick plus the timers that
+// expire or move down.
+//
+// Timers fire when advance() is called at or after their deadline, up to one
+// tick late and never early. Not thread-safe; callers synchronize.
+public final class TimingWheel<T> {
+
+    // Handle for cancelling a scheduled timer
+    public static final class Timer<T> {
+        private final T item;
+        private final long deadline;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private boolean scheduled;
+
+        private Timer(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    // slot width of each level, tickMillis * wheelSize^level
+    private final List<Long> slotMillis = new ArrayList<>();
+    // level -> slots, each a circular list behind a sentinel
+    private final List<Timer<T>[]> levels = new ArrayList<>();
+
+    // start of the level-0 slot that has not been expired yet
+    private long currentTime;
+    private int size;
+    private long cascaded;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("Timing wheel needs a tick of at least 1 ms and at least 2 slots");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        addLevel();
+    }
+
+    // A deadline already passed fires on the next advance()
+    public Timer<T> schedule(T item, long deadline) {
+        Timer<T> timer = new Timer<>(item, deadline);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    // Returns false if the timer already fired or was cancelled
+    public boolean cancel(Timer<T> timer) {
+        if (!timer.scheduled) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Fires every timer whose deadline is before the end of the last whole tick
+    // up to now, in tick order
+    public void advance(long now, Consumer<T> expired) {
+        while (currentTime + tickMillis <= now) {
+            Timer<T> slot = levels.get(0)[slotIndex(currentTime, 0)];
+            while (slot.next != slot) {
+                Timer<T> timer = slot.next;
+                unlink(timer);
+                size--;
+                expired.accept(timer.item);
+            }
+            currentTime += tickMillis;
+
+            // upper slots starting now move down, highest level first
+            for (int level = levels.size() - 1; level > 0; level--) {
+                if (currentTime % slotMillis.get(level) == 0) {
+                    cascade(level);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("timers", size);
+        stats.put("levels", levels.size());
+        stats.put("tickMillis", tickMillis);
+        stats.put("wheelSize", wheelSize);
+        stats.put("spanMillis", slotMillis.get(levels.size() - 1) * wheelSize);
+        stats.put("cascaded", cascaded);
+        return stats;
+    }
+
+    private void cascade(int level) {
+        Timer<T> slot = levels.get(level)[slotIndex(currentTime, level)];
+        while (slot.next != slot) {
+            Timer<T> timer = slot.next;
+            unlink(timer);
+            place(timer);
+            cascaded++;
+        }
+    }
+
+    // Lowest level whose window (the current slot and the wheelSize - 1 after it)
+    // holds the deadline. Level 0's current slot is still to expire, so it takes
+    // anything due; upper levels' current slots have already cascaded.
+    private void place(Timer<T> timer) {
+        long deadline = Math.max(timer.deadline, currentTime);
+        int level = 0;
+        while (deadline / slotMillis.get(level) - currentTime / slotMillis.get(level) >= wheelSize) {
+            level++;
+            if (level == levels.size()) {
+                addLevel();
+            }
+        }
+        link(levels.get(level)[slotIndex(deadline, level)], timer);
+    }
+
+    private int slotIndex(long time, int level) {
+        return (int) ((time / slotMillis.get(level)) % wheelSize);
+    }
+
+    private void addLevel() {
+        long width = levels.isEmpty() ? tickMillis : Math.multiplyExact(slotMillis.get(levels.size() - 1), wheelSize);
+        @SuppressWarnings("unchecked")
+        Timer<T>[] slots = (Timer<T>[]) new Timer<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            Timer<T> sentinel = new Timer<>(null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            slots[i] = sentinel;
+        }
+        slotMillis.add(width);
+        levels.add(slots);
+    }
+
+    private static <T> void link(Timer<T> sentinel, Timer<T> timer) {
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+        timer.scheduled = true;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+        timer.scheduled = false;
+    }
+}
@@ -0,0 +1,239 @@
+package com.smartfare.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Character trie from lower-case tokens to long postings, with prefix lookup and
+// typo-tolerant lookup (optimal string alignment distance, so an adjacent swap
+// counts as one edit). Not thread-safe: callers guard reads and writes.
+public final class TokenTrie {
+
+    public interface Visitor {
+        // remaining is the number of token characters after the matched prefix,
+        // 0 when the whole token matched
+        void match(long posting, int edits, int remaining);
+    }
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_POSTINGS = new long[0];
+
+    private static final class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        long[] postings = NO_POSTINGS;
+        int postingCount;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            Node node = new Node();
+            newKeys[at] = c;
+            newChildren[at] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+    }
+
+    // A node whose path matched the whole query within the edit budget
+    private record Anchor(Node node, int depth, int edits) {}
+
+    private final Node root = new Node();
+    private int nodeCount = 1;
+    private int postingCount;
+
+    public void add(String token, long posting) {
+        Node node = root;
+        for (int i = 0; i < token.length(); i++) {
+            Node next = node.child(token.charAt(i));
+            if (next == null) {
+                next = node.addChild(token.charAt(i));
+                nodeCount++;
+            }
+            node = next;
+        }
+        if (node.postingCount == node.postings.length) {
+            node.postings = Arrays.copyOf(node.postings, Math.max(2, node.postingCount * 2));
+        }
+        node.postings[node.postingCount++] = posting;
+        postingCount++;
+    }
+
+    public boolean remove(String token, long posting) {
+        Node node = root;
+        for (int i = 0; i < token.length() && node != null; i++) {
+            node = node.child(token.charAt(i));
+        }
+        if (node == null) {
+            return false;
+        }
+        for (int i = 0; i < node.postingCount; i++) {
+            if (node.postings[i] == posting) {
+                node.postings[i] = node.postings[--node.postingCount];
+                postingCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int postingCount() {
+        return postingCount;
+    }
+
+    // Reports every token that starts with something within maxEdits of the query
+    // (with the first character matching exactly).
+    // Closer matches are visited first and a posting may be reported more than once,
+    // best match first. Stops after roughly maxPostings postings.
+    public void search(String query, int maxEdits, int maxPostings, Visitor visitor) {
+        List<Anchor> anchors = new ArrayList<>();
+        if (maxEdits <= 0) {
+            Node node = root;
+            for (int i = 0; i < query.length() && node != null; i++) {
+                node = node.child(query.charAt(i));
+            }
+            if (node != null) {
+                anchors.add(new Anchor(node, query.length(), 0));
+            }
+        } else {
+            int[] firstRow = new int[query.length() + 1];
+            for (int j = 0; j < firstRow.length; j++) {
+                firstRow[j] = j;
+            }
+            // Typos in the first letter are rare and allowing them multiplies the work,
+            // so the fuzzy walk starts below the query's first character
+            Node first = query.isEmpty() ? null : root.child(query.charAt(0));
+            if (first != null) {
+                int[] secondRow = new int[query.length() + 1];
+                secondRow[0] = 1;
+                for (int j = 1; j < secondRow.length; j++) {
+                    secondRow[j] = j - 1;
+                }
+                findAnchors(first, 1, query.charAt(0), firstRow, secondRow, query, maxEdits, anchors);
+            }
+            // fewest edits first, then the most specific node
+            anchors.sort((a, b) -> a.edits != b.edits ? Integer.compare(a.edits, b.edits)
+                                                      : Integer.compare(b.depth, a.depth));
+        }
+
+        int budget = maxPostings;
+        for (Anchor anchor : anchors) {
+            budget = collect(anchor, budget, visitor);
+            if (budget <= 0) {
+                return;
+            }
+        }
+    }
+
+    private void findAnchors(Node node, int depth, char c, int[] prevPrevRow, int[] prevRow,
+                             String query, int maxEdits, List<Anchor> anchors) {
+        int n = query.length();
+        if (prevRow[n] <= maxEdits) {
+            anchors.add(new Anchor(node, depth, prevRow[n]));
+        }
+
+        for (int k = 0; k < node.keys.length; k++) {
+            char next = node.keys[k];
+            int[] row = new int[n + 1];
+            row[0] = depth + 1;
+            int rowMin = row[0];
+            for (int j = 1; j <= n; j++) {
+                char q = query.charAt(j - 1);
+                int cost = q == next ? 0 : 1;
+                int value = Math.min(Math.min(row[j - 1] + 1, prevRow[j] + 1), prevRow[j - 1] + cost);
+                if (prevPrevRow != null && j > 1 && q == c && query.charAt(j - 2) == next) {
+                    value = Math.min(value, prevPrevRow[j - 2] + 1);
+                }
+                row[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin <= maxEdits) {
+                findAnchors(node.children[k], depth + 1, next, prevRow, row, query, maxEdits, anchors);
+            }
+        }
+    }
+
+    // Breadth-first so that the shortest completions are reported first
+    private int collect(Anchor anchor, int budget, Visitor visitor) {
+        List<Node> level = List.of(anchor.node);
+        int remaining = 0;
+        while (!level.isEmpty() && budget > 0) {
+            List<Node> next = new ArrayList<>();
+            for (Node node : level) {
+                for (int i = 0; i < node.postingCount; i++) {
+                    visitor.match(node.postings[i], anchor.edits, remaining);
+                }
+                budget -= node.postingCount;
+                if (budget <= 0) {
+                    return budget;
+                }
+                next.addAll(Arrays.asList(node.children));
+            }
+            level = next;
+            remaining++;
+        }
+        return budget;
+    }
+
+    // Edits needed to turn some prefix of token into query, using the same metric and
+    // first-character rule as search(). Returns {edits, remaining} for the best prefix, or null when more
+    // than maxEdits are needed.
+    public static int[] prefixDistance(String query, String token, int maxEdits) {
+        int n = query.length();
+        if (maxEdits > 0 && n > 0 && (token.isEmpty() || token.charAt(0) != query.charAt(0))) {
+            return null;
+        }
+        int[] prevPrevRow = null;
+        int[] prevRow = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            prevRow[j] = j;
+        }
+        int bestEdits = prevRow[n];
+        int bestDepth = 0;
+        for (int i = 1; i <= token.length(); i++) {
+            char c = token.charAt(i - 1);
+            int[] row = new int[n + 1];
+            row[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= n; j++) {
+                char q = query.charAt(j - 1);
+                int value = Math.min(Math.min(row[j - 1] + 1, prevRow[j] + 1), prevRow[j - 1] + (q == c ? 0 : 1));
+                if (prevPrevRow != null && j > 1 && q == token.charAt(i - 2) && query.charAt(j - 2) == c) {
+                    value = Math.min(value, prevPrevRow[j - 2] + 1);
+                }
+                row[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (row[n] <= bestEdits) {
+                bestEdits = row[n];
+                bestDepth = i;
+            }
+            if (rowMin > maxEdits) {
+                break;
+            }
+            prevPrevRow = prevRow;
+            prevRow = row;
+        }
+        return bestEdits <= maxEdits ? new int[] {bestEdits, token.length() - bestDepth} : null;
+    }
+}
@@ -0,0 +1,82 @@
+-- Baseline schema, matching what hibernate.ddl-auto=update produced for the
+-- entity model. Existing databases are baselined at this version instead.
+
+CREATE TABLE locations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    city VARCHAR(255) NOT NULL,
+    state VARCHAR(255) NOT NULL,
+    latitude FLOAT(53),
+    longitude FLOAT(53),
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE bus_types (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    type_name VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE buses (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bus_number VARCHAR(255) NOT NULL UNIQUE,
+    bus_type_id BIGINT,
+    total_seats INTEGER NOT NULL,
+    operator_name VARCHAR(255) NOT NULL,
+    status VARCHAR(255) CHECK (status IN ('ACTIVE', 'INACTIVE', 'MAINTENANCE')),
+    created_at TIMESTAMP(6),
+    CONSTRAINT fk_buses_bus_type FOREIGN KEY (bus_type_id) REFERENCES bus_types(id)
+);
+
+CREATE TABLE routes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    from_location_id BIGINT NOT NULL,
+    to_location_id BIGINT NOT NULL,
+    distance_km NUMERIC(6, 2),
+    estimated_duration_minutes INTEGER,
+    base_fare NUMERIC(8, 2) NOT NULL,
+    created_at TIMESTAMP(6),
+    CONSTRAINT fk_routes_from_location FOREIGN KEY (from_location_id) REFERENCES locations(id),
+    CONSTRAINT fk_routes_to_location FOREIGN KEY (to_location_id) REFERENCES locations(id)
+);
+
+CREATE TABLE bus_schedules (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bus_id BIGINT NOT NULL,
+    route_id BIGINT NOT NULL,
+    departure_time TIME(6) NOT NULL,
+    arrival_time TIME(6) NOT NULL,
+    fare NUMERIC(8, 2) NOT NULL,
+    available_seats INTEGER NOT NULL,
+    schedule_date DATE NOT NULL,
+    status VARCHAR(255) CHECK (status IN ('SCHEDULED', 'RUNNING', 'COMPLETED', 'CANCELLED')),
+    created_at TIMESTAMP(6),
+    CONSTRAINT fk_bus_schedules_bus FOREIGN KEY (bus_id) REFERENCES buses(id),
+    CONSTRAINT fk_bus_schedules_route FOREIGN KEY (route_id) REFERENCES routes(id)
+);
+
+CREATE TABLE passengers (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(255),
+    phone VARCHAR(255) NOT NULL UNIQUE,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE bookings (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booking_reference VARCHAR(255) NOT NULL UNIQUE,
+    passenger_id BIGINT NOT NULL,
+    schedule_id BIGINT NOT NULL,
+    seat_number VARCHAR(255) NOT NULL,
+    fare_amount NUMERIC(8, 2) NOT NULL,
+    payment_status VARCHAR(255) CHECK (payment_status IN ('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED')),
+    payment_method VARCHAR(255),
+    payment_transaction_id VARCHAR(255),
+    qr_code_data TEXT,
+    booking_status VARCHAR(255) CHECK (booking_status IN ('CONFIRMED', 'CANCELLED', 'COMPLETED')),
+    booking_date TIMESTAMP(6),
+    CONSTRAINT fk_bookings_passenger FOREIGN KEY (passenger_id) REFERENCES passengers(id),
+    CONSTRAINT fk_bookings_schedule FOREIGN KEY (schedule_id) REFERENCES bus_schedules(id)
+);
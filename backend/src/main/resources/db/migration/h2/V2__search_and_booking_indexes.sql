@@ -0,0 +1,18 @@
+-- Indexes for the search and booking queries.
+
+-- Bus search: equality on route, date and status, rows come back in
+-- departure order and available_seats is filtered from the index entry
+CREATE INDEX idx_routes_from_to ON routes (from_location_id, to_location_id);
+CREATE INDEX idx_bus_schedules_search ON bus_schedules (route_id, schedule_date, status, departure_time, available_seats);
+CREATE INDEX idx_bus_schedules_date ON bus_schedules (schedule_date);
+
+-- Seat inventory load and confirmed-booking counts per schedule
+CREATE INDEX idx_bookings_schedule_status ON bookings (schedule_id, booking_status, seat_number);
+
+-- Booking history by passenger
+CREATE INDEX idx_bookings_passenger ON bookings (passenger_id, booking_date);
+
+-- Location lookups
+CREATE INDEX idx_locations_name ON locations (name);
+CREATE INDEX idx_locations_city ON locations (city);
+CREATE INDEX idx_passengers_email ON passengers (email);
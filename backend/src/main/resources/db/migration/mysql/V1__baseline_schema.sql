@@ -0,0 +1,90 @@
+-- Baseline schema, as in database/schema.sql. Databases created from that
+-- script are baselined at this version instead.
+
+-- Locations table
+CREATE TABLE locations (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    city VARCHAR(50) NOT NULL,
+    state VARCHAR(50) NOT NULL,
+    latitude DECIMAL(10, 8),
+    longitude DECIMAL(11, 8),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Bus types table
+CREATE TABLE bus_types (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    type_name VARCHAR(50) NOT NULL, -- AC, Non-AC, Sleeper, etc.
+    description TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Buses table
+CREATE TABLE buses (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    bus_number VARCHAR(20) UNIQUE NOT NULL,
+    bus_type_id BIGINT,
+    total_seats INT NOT NULL,
+    operator_name VARCHAR(100) NOT NULL,
+    status ENUM('ACTIVE', 'INACTIVE', 'MAINTENANCE') DEFAULT 'ACTIVE',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (bus_type_id) REFERENCES bus_types(id)
+);
+
+-- Routes table
+CREATE TABLE routes (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    from_location_id BIGINT NOT NULL,
+    to_location_id BIGINT NOT NULL,
+    distance_km DECIMAL(6, 2),
+    estimated_duration_minutes INT,
+    base_fare DECIMAL(8, 2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (from_location_id) REFERENCES locations(id),
+    FOREIGN KEY (to_location_id) REFERENCES locations(id),
+    UNIQUE KEY unique_route (from_location_id, to_location_id)
+);
+
+-- Bus schedules table
+CREATE TABLE bus_schedules (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    bus_id BIGINT NOT NULL,
+    route_id BIGINT NOT NULL,
+    departure_time TIME NOT NULL,
+    arrival_time TIME NOT NULL,
+    fare DECIMAL(8, 2) NOT NULL,
+    available_seats INT NOT NULL,
+    schedule_date DATE NOT NULL,
+    status ENUM('SCHEDULED', 'RUNNING', 'COMPLETED', 'CANCELLED') DEFAULT 'SCHEDULED',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (bus_id) REFERENCES buses(id),
+    FOREIGN KEY (route_id) REFERENCES routes(id)
+);
+
+-- Passengers table
+CREATE TABLE passengers (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100),
+    phone VARCHAR(15) NOT NULL UNIQUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Bookings table
+CREATE TABLE bookings (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    booking_reference VARCHAR(20) UNIQUE NOT NULL,
+    passenger_id BIGINT NOT NULL,
+    schedule_id BIGINT NOT NULL,
+    seat_number VARCHAR(10) NOT NULL,
+    fare_amount DECIMAL(8, 2) NOT NULL,
+    payment_status ENUM('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED') DEFAULT 'PENDING',
+    payment_method VARCHAR(20) DEFAULT 'UPI',
+    payment_transaction_id VARCHAR(100),
+    qr_code_data TEXT,
+    booking_status ENUM('CONFIRMED', 'CANCELLED', 'COMPLETED') DEFAULT 'CONFIRMED',
+    booking_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (passenger_id) REFERENCES passengers(id),
+    FOREIGN KEY (schedule_id) REFERENCES bus_schedules(id)
+);
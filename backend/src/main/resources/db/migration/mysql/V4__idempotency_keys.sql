@@ -0,0 +1,13 @@
+-- Responses to requests sent with an Idempotency-Key, kept so a retried request
+-- is answered with the original result (smartfare.idempotency.persistent).
+-- Keys are scoped by endpoint; old rows are purged after the TTL.
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(300) NOT NULL PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INTEGER NOT NULL,
+    response_body MEDIUMTEXT,
+    created_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created ON idempotency_keys (created_at);
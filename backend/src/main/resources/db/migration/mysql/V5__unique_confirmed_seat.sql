@@ -0,0 +1,10 @@
+-- At most one CONFIRMED booking per seat of a schedule. The in-memory seat
+-- inventory normally turns a double booking away first; this catches
+-- anything that gets past it.
+-- Cancelled bookings leave confirmed_seat NULL, which the unique index does
+-- not compare, so a released seat can be booked again.
+
+ALTER TABLE bookings ADD COLUMN confirmed_seat VARCHAR(10)
+    GENERATED ALWAYS AS (CASE WHEN booking_status = 'CONFIRMED' THEN seat_number END) STORED;
+
+CREATE UNIQUE INDEX uk_bookings_confirmed_seat ON bookings (schedule_id, confirmed_seat);
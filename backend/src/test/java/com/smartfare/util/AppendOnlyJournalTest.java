@@ -0,0 +1,237 @@
+package com.smartfare.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AppendOnlyJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+    private static final int HEADER_BYTES = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAcknowledgedRecordsAfterReopen() throws Exception {
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(append(journal, "one")).isEqualTo(1);
+            assertThat(append(journal, "two")).isEqualTo(2);
+            assertThat(append(journal, "three")).isEqualTo(3);
+        }
+
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(journal.lastSequence()).isEqualTo(3);
+            assertThat(payloads(journal, 0)).containsExactly("one", "two", "three");
+            assertThat(payloads(journal, 1)).containsExactly("two", "three");
+            assertThat(append(journal, "four")).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void cutsTornTailOnReopen() throws Exception {
+        try (AppendOnlyJournal journal = open()) {
+            append(journal, "one");
+            append(journal, "two");
+        }
+        // a header for record 3 made it to disk, its payload did not
+        Path segment = onlySegment();
+        int end = recordEnd(segment, 2);
+        writeHeader(segment, end, 40, 0x12345678, 3);
+
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(journal.lastSequence()).isEqualTo(2);
+            assertThat(payloads(journal, 0)).containsExactly("one", "two");
+            assertThat(append(journal, "three")).isEqualTo(3);
+        }
+
+        // the cut region was zeroed, so the new record is found where the torn one was
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(payloads(journal, 0)).containsExactly("one", "two", "three");
+        }
+    }
+
+    @Test
+    void cutsFromFirstRecordWithBadChecksum() throws Exception {
+        try (AppendOnlyJournal journal = open()) {
+            append(journal, "one");
+            append(journal, "two");
+            append(journal, "three");
+        }
+        Path segment = onlySegment();
+        int second = recordEnd(segment, 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), second + HEADER_BYTES);
+        }
+
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(journal.lastSequence()).isEqualTo(1);
+            assertThat(payloads(journal, 0)).containsExactly("one");
+            assertThat(append(journal, "again")).isEqualTo(2);
+        }
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(payloads(journal, 0)).containsExactly("one", "again");
+        }
+    }
+
+    @Test
+    void cutsFromFirstOutOfSequenceRecord() throws Exception {
+        try (AppendOnlyJournal journal = open()) {
+            append(journal, "one");
+            append(journal, "two");
+        }
+        // well-formed and correctly checksummed, but numbered 5 where 3 is due
+        Path segment = onlySegment();
+        byte[] payload = "five".getBytes(StandardCharsets.UTF_8);
+        int end = recordEnd(segment, 2);
+        writeHeader(segment, end, payload.length, crc(5, payload), 5);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(payload), end + HEADER_BYTES);
+        }
+
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(journal.lastSequence()).isEqualTo(2);
+            assertThat(payloads(journal, 0)).containsExactly("one", "two");
+        }
+    }
+
+    @Test
+    void replaysAcrossSegmentRolls() throws Exception {
+        // four 1000-byte records fill a 4 KB segment
+        try (AppendOnlyJournal journal = open()) {
+            for (int i = 1; i <= 10; i++) {
+                assertThat(append(journal, record(i))).isEqualTo(i);
+            }
+        }
+        assertThat(segments()).hasSize(3);
+
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(journal.lastSequence()).isEqualTo(10);
+            assertThat(sequences(journal, 0)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+            assertThat(sequences(journal, 5)).containsExactly(6L, 7L, 8L, 9L, 10L);
+            assertThat(append(journal, record(11))).isEqualTo(11);
+        }
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(sequences(journal, 8)).containsExactly(9L, 10L, 11L);
+        }
+    }
+
+    @Test
+    void compactsOnlySegmentsCoveredByCheckpoint() throws Exception {
+        try (AppendOnlyJournal journal = open()) {
+            for (int i = 1; i <= 10; i++) {
+                append(journal, record(i));
+            }
+            // segments hold 1-4, 5-8 and 9-10
+            journal.checkpoint(7);
+            assertThat(journal.compact()).isEqualTo(1);
+            journal.checkpoint(8);
+            journal.checkpoint(3);
+            assertThat(journal.checkpointSequence()).isEqualTo(8);
+            assertThat(journal.compact()).isEqualTo(1);
+            assertThat(journal.compact()).isZero();
+        }
+        assertThat(segments()).hasSize(1);
+
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(journal.checkpointSequence()).isEqualTo(8);
+            assertThat(journal.lastSequence()).isEqualTo(10);
+            assertThat(sequences(journal, journal.checkpointSequence())).containsExactly(9L, 10L);
+            assertThat(append(journal, record(11))).isEqualTo(11);
+        }
+    }
+
+    @Test
+    void startsAfterCheckpointWhenEverySegmentIsGone() throws Exception {
+        try (AppendOnlyJournal journal = open()) {
+            append(journal, "one");
+            append(journal, "two");
+            journal.checkpoint(2);
+        }
+        for (Path segment : segments()) {
+            Files.delete(segment);
+        }
+
+        try (AppendOnlyJournal journal = open()) {
+            assertThat(journal.lastSequence()).isEqualTo(2);
+            assertThat(append(journal, "three")).isEqualTo(3);
+            assertThat(payloads(journal, 2)).containsExactly("three");
+        }
+    }
+
+    private AppendOnlyJournal open() throws IOException {
+        return new AppendOnlyJournal(directory, SEGMENT_BYTES, 16);
+    }
+
+    private static long append(AppendOnlyJournal journal, String payload) throws Exception {
+        return journal.append(payload.getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+    }
+
+    private static String record(int i) {
+        return String.format("%-1000d", i);
+    }
+
+    private static List<String> payloads(AppendOnlyJournal journal, long after) throws IOException {
+        List<String> payloads = new ArrayList<>();
+        journal.replay(after, entry -> payloads.add(new String(entry.payload(), StandardCharsets.UTF_8)));
+        return payloads;
+    }
+
+    private static List<Long> sequences(AppendOnlyJournal journal, long after) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        journal.replay(after, entry -> sequences.add(entry.sequence()));
+        return sequences;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    // Offset just past the first `records` records of a segment
+    private static int recordEnd(Path segment, int records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int position = 0;
+        for (int i = 0; i < records; i++) {
+            position += HEADER_BYTES + buffer.getInt(position);
+        }
+        return position;
+    }
+
+    private static void writeHeader(Path segment, int offset, int length, int crc, long sequence) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(length).putInt(crc).putLong(sequence).flip();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(header, offset);
+        }
+    }
+
+    private static int crc(long sequence, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (sequence >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,117 @@
+package com.smartfare.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    // 10 ms ticks and 4 slots: level 0 spans 40 ms, level 1 160 ms, level 2 640 ms,
+    // level 3 2560 ms, so deadlines seconds out cascade through four levels or more
+    private static final long TICK = 10;
+    private static final int SLOTS = 4;
+
+    @Test
+    void firesEveryTimerWithinOneTickAfterItsDeadlineAcrossLevels() {
+        long start = 1_000_003;
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, SLOTS, start);
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        Map<Long, Long> firedAt = new HashMap<>();
+        long id = 0;
+
+        long end = start + 6000;
+        for (long now = start; now <= end + TICK; now++) {
+            // keep adding timers as time moves, so they land at every level and offset
+            if (now < start + 2000 && now % 7 == 0) {
+                for (int i = 0; i < 3; i++) {
+                    long deadline = now + random.nextInt(4000);
+                    deadlines.put(id, deadline);
+                    wheel.schedule(id++, deadline);
+                }
+            }
+            long current = now;
+            wheel.advance(now, item -> assertThat(firedAt.put(item, current)).as("fired twice: %d", item).isNull());
+        }
+
+        assertThat((int) wheel.getStats().get("levels")).isGreaterThanOrEqualTo(4);
+        assertThat((long) wheel.getStats().get("cascaded")).isPositive();
+        assertThat(wheel.size()).isZero();
+        assertThat(firedAt).hasSameSizeAs(deadlines);
+        for (Map.Entry<Long, Long> timer : deadlines.entrySet()) {
+            long fired = firedAt.get(timer.getKey());
+            assertThat(fired).as("timer %d", timer.getKey())
+                .isGreaterThanOrEqualTo(timer.getValue())
+                .isLessThanOrEqualTo(timer.getValue() + TICK);
+        }
+    }
+
+    @Test
+    void neverFiresEarlyWhenAdvancedInLargeSteps() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, SLOTS, 0);
+        Random random = new Random(7);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long id = 0; id < 2000; id++) {
+            long deadline = random.nextInt(10_000);
+            deadlines.put(id, deadline);
+            wheel.schedule(id, deadline);
+        }
+
+        Set<Long> fired = new HashSet<>();
+        for (long now = 0; now <= 10_000 + TICK; now += 1 + random.nextInt(700)) {
+            long current = now;
+            wheel.advance(now, item -> {
+                assertThat(deadlines.get(item)).as("timer %d", item).isLessThanOrEqualTo(current);
+                fired.add(item);
+            });
+        }
+        wheel.advance(10_000 + TICK, fired::add);
+
+        assertThat(fired).hasSize(deadlines.size());
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledTimersNeverFireEvenAfterCascading() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, SLOTS, 0);
+        List<TimingWheel.Timer<Integer>> timers = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            timers.add(wheel.schedule(i, 500 + i * 10L));
+        }
+
+        // far enough that the upper slots holding them have cascaded down
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(400, fired::add);
+        assertThat(fired).isEmpty();
+        for (int i = 0; i < timers.size(); i += 2) {
+            assertThat(wheel.cancel(timers.get(i))).isTrue();
+            assertThat(wheel.cancel(timers.get(i))).isFalse();
+        }
+        assertThat(wheel.size()).isEqualTo(150);
+
+        wheel.advance(10_000, fired::add);
+        assertThat(fired).hasSize(150).allMatch(i -> i % 2 == 1);
+        assertThat(wheel.cancel(timers.get(1))).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SLOTS, 1000);
+        wheel.advance(5000, item -> { });
+        wheel.schedule("late", 10);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(5005, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(5010, fired::add);
+        assertThat(fired).containsExactly("late");
+    }
+}
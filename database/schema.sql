@@ -6,7 +6,7 @@ USE smart_fare_db;
 
 -- Locations table
 CREATE TABLE locations (
-    id INT PRIMARY KEY AUTO_INCREMENT,
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
     name VARCHAR(100) NOT NULL,
     city VARCHAR(50) NOT NULL,
     state VARCHAR(50) NOT NULL,
@@ -17,7 +17,7 @@ CREATE TABLE locations (
 
 -- Bus types table
 CREATE TABLE bus_types (
-    id INT PRIMARY KEY AUTO_INCREMENT,
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
     type_name VARCHAR(50) NOT NULL, -- AC, Non-AC, Sleeper, etc.
     description TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
@@ -25,9 +25,9 @@ CREATE TABLE bus_types (
 
 -- Buses table
 CREATE TABLE buses (
-    id INT PRIMARY KEY AUTO_INCREMENT,
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
     bus_number VARCHAR(20) UNIQUE NOT NULL,
-    bus_type_id INT,
+    bus_type_id BIGINT,
     total_seats INT NOT NULL,
     operator_name VARCHAR(100) NOT NULL,
     status ENUM('ACTIVE', 'INACTIVE', 'MAINTENANCE') DEFAULT 'ACTIVE',
@@ -37,9 +37,9 @@ CREATE TABLE buses (
 
 -- Routes table
 CREATE TABLE routes (
-    id INT PRIMARY KEY AUTO_INCREMENT,
-    from_location_id INT NOT NULL,
-    to_location_id INT NOT NULL,
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    from_location_id BIGINT NOT NULL,
+    to_location_id BIGINT NOT NULL,
     distance_km DECIMAL(6, 2),
     estimated_duration_minutes INT,
     base_fare DECIMAL(8, 2) NOT NULL,
@@ -51,9 +51,9 @@ CREATE TABLE routes (
 
 -- Bus schedules table
 CREATE TABLE bus_schedules (
-    id INT PRIMARY KEY AUTO_INCREMENT,
-    bus_id INT NOT NULL,
-    route_id INT NOT NULL,
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    bus_id BIGINT NOT NULL,
+    route_id BIGINT NOT NULL,
     departure_time TIME NOT NULL,
     arrival_time TIME NOT NULL,
     fare DECIMAL(8, 2) NOT NULL,
@@ -67,7 +67,7 @@ CREATE TABLE bus_schedules (
 
 -- Passengers table
 CREATE TABLE passengers (
-    id INT PRIMARY KEY AUTO_INCREMENT,
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
     name VARCHAR(100) NOT NULL,
     email VARCHAR(100),
     phone VARCHAR(15) NOT NULL UNIQUE,
@@ -76,10 +76,10 @@ CREATE TABLE passengers (
 
 -- Bookings table
 CREATE TABLE bookings (
-    id INT PRIMARY KEY AUTO_INCREMENT,
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
     booking_reference VARCHAR(20) UNIQUE NOT NULL,
-    passenger_id INT NOT NULL,
-    schedule_id INT NOT NULL,
+    passenger_id BIGINT NOT NULL,
+    schedule_id BIGINT NOT NULL,
     seat_number VARCHAR(10) NOT NULL,
     fare_amount DECIMAL(8, 2) NOT NULL,
     payment_status ENUM('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED') DEFAULT 'PENDING',
@@ -92,6 +92,16 @@ CREATE TABLE bookings (
     FOREIGN KEY (schedule_id) REFERENCES bus_schedules(id)
 );
 
+-- Indexes for the search and booking queries
+-- (kept in sync with backend/src/main/resources/db/migration/mysql)
+CREATE INDEX idx_bus_schedules_search ON bus_schedules (route_id, schedule_date, status, departure_time, available_seats);
+CREATE INDEX idx_bus_schedules_date ON bus_schedules (schedule_date);
+CREATE INDEX idx_bookings_schedule_status ON bookings (schedule_id, booking_status, seat_number);
+CREATE INDEX idx_bookings_passenger ON bookings (passenger_id, booking_date);
+CREATE INDEX idx_locations_name ON locations (name);
+CREATE INDEX idx_locations_city ON locations (city);
+CREATE INDEX idx_passengers_email ON passengers (email);
+
 -- Insert sample data
 INSERT INTO locations (name, city, state, latitude, longitude) VALUES
 ('Koyambedu Bus Terminal', 'Chennai', 'Tamil Nadu', 13.0732, 80.1986),
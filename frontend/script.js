@@ -7,6 +7,10 @@ let currentBooking = null;
 let locations = [];
 let selectedSeat = null;
 let steps = {};
+// Idempotency-Key for the current seat selection, reused when its booking is
+// resent, and the transaction id of the payment for the current booking
+let bookingIdempotencyKey = null;
+let paymentTransactionId = null;
 
 // Initialize the application
 document.addEventListener("DOMContentLoaded", function () {
@@ -680,6 +684,7 @@ function selectSeat(seatNumber, seatElement) {
   // Select new seat
   seatElement.classList.add("selected");
   selectedSeat = seatNumber;
+  bookingIdempotencyKey = newIdempotencyKey();
 
   showToast(`Seat ${seatNumber} selected`);
 }
@@ -789,20 +794,34 @@ async function processPayment() {
       seatNumber: `A${selectedSeat}`,
     };
 
-    const response = await fetch(`${API_BASE_URL}/bookings/create`, {
-      method: "POST",
-      headers: {
-        "Content-Type": "application/json",
-      },
-      body: JSON.stringify(bookingData),
-    });
+    if (!bookingIdempotencyKey) {
+      bookingIdempotencyKey = newIdempotencyKey();
+    }
+    let response = await postWithRetry(
+      `${API_BASE_URL}/bookings/create`,
+      bookingData,
+      bookingIdempotencyKey
+    );
+    if (response.status === 422) {
+      // Details changed since this seat was last submitted: a new request
+      bookingIdempotencyKey = newIdempotencyKey();
+      response = await postWithRetry(
+        `${API_BASE_URL}/bookings/create`,
+        bookingData,
+        bookingIdempotencyKey
+      );
+    }
 
     if (!response.ok) {
       const error = await response.json();
       throw new Error(error.error || "Booking failed");
     }
 
-    currentBooking = await response.json();
+    const booking = await response.json();
+    if (!currentBooking || currentBooking.bookingReference !== booking.bookingReference) {
+      paymentTransactionId = "TXN" + Date.now();
+    }
+    currentBooking = booking;
 
     // Simulate payment processing
     await new Promise((resolve) => setTimeout(resolve, 2000));
@@ -823,18 +842,51 @@ async function processPayment() {
   }
 }
 
-async function updatePaymentStatus() {
-  const transactionId = "TXN" + Date.now();
-
-  const response = await fetch(
-    `${API_BASE_URL}/bookings/${currentBooking.bookingReference}/payment`,
-    {
-      method: "POST",
-      headers: {
-        "Content-Type": "application/json",
-      },
-      body: JSON.stringify({ transactionId }),
+// One key per seat selection; a resend of the same booking carries the same key
+// and gets the original result back instead of booking twice
+function newIdempotencyKey() {
+  if (window.crypto && crypto.randomUUID) {
+    return crypto.randomUUID();
+  }
+  return Date.now().toString(36) + Math.random().toString(36).slice(2);
+}
+
+// POSTs JSON with an Idempotency-Key, resending the identical request when the
+// network fails or the server asks to retry (an earlier send still in flight,
+// or busy). The server answers a resend with the original result.
+async function postWithRetry(url, body, idempotencyKey, attempts = 3) {
+  for (let attempt = 1; ; attempt++) {
+    try {
+      const response = await fetch(url, {
+        method: "POST",
+        headers: {
+          "Content-Type": "application/json",
+          "Idempotency-Key": idempotencyKey,
+        },
+        body: JSON.stringify(body),
+      });
+      const retryable =
+        (response.status === 409 && response.headers.has("Retry-After")) ||
+        response.status === 503;
+      if (!retryable || attempt >= attempts) {
+        return response;
+      }
+    } catch (error) {
+      // fetch only rejects on network failure
+      if (attempt >= attempts) {
+        throw error;
+      }
     }
+    await new Promise((resolve) => setTimeout(resolve, 500 * 2 ** (attempt - 1)));
+  }
+}
+
+async function updatePaymentStatus() {
+  const reference = currentBooking.bookingReference;
+  const response = await postWithRetry(
+    `${API_BASE_URL}/bookings/${reference}/payment`,
+    { transactionId: paymentTransactionId },
+    `payment-${reference}`
   );
 
   if (response.ok) {
@@ -944,10 +996,10 @@ async function downloadTicket() {
       }
     } catch (error) {
       console.warn("Using fallback QR code:", error);
-      // Fallback to online QR code generator
-      const qrFallbackData = `BOOKING:${currentBooking.bookingReference}|PASSENGER:${currentBooking.passenger.name}|BUS:${selectedBus.bus.busNumber}|SEAT:${currentBooking.seatNumber}|DATE:${selectedBus.scheduleDate}|FARE:${currentBooking.fareAmount}`;
+      // Fallback to online QR code generator, with the signed ticket code the
+      // gate verifies
       qrCodeUrl = `https://api.qrserver.com/v1/create-qr-code/?size=200x200&format=png&data=${encodeURIComponent(
-        qrFallbackData
+        currentBooking.qrCodeData
       )}`;
     }
 
@@ -1436,6 +1488,8 @@ function resetApp() {
   selectedBus = null;
   currentBooking = null;
   selectedSeat = null;
+  bookingIdempotencyKey = null;
+  paymentTransactionId = null;
 
   // Clear form fields with null checks
   const fromLocation = document.getElementById("fromLocation");